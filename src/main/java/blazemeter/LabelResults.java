@@ -0,0 +1,111 @@
+package blazemeter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * per label (transaction) results of masters.
+ * label names are only stored once, in a dictionary shared by all masters, and each master keeps its values in
+ * primitive arrays, so a test with 200 labels over 100 runs only takes a few hundred KB
+ */
+class LabelResults {
+
+    /**
+     * the values of every label in a single master, labels are sorted by dictionary id so we can binary search them
+     */
+    static class MasterLabels {
+        final int[] labels;
+        /**
+         * [metric][label], metric is the index in {@link App#SUMMARY_METRICS}, NaN if the label had no value
+         */
+        final float[][] values;
+
+        MasterLabels(int[] labels, float[][] values) {
+            this.labels = labels;
+            this.values = values;
+        }
+
+        boolean hasLabel(int label) {
+            return Arrays.binarySearch(labels, label) >= 0;
+        }
+
+        float get(int label, int metric) {
+            int index = Arrays.binarySearch(labels, label);
+            return index < 0 ? Float.NaN : values[metric][index];
+        }
+    }
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    /**
+     * only finished masters go in here, as the results of running ones are still changing
+     */
+    private final Map<Long, MasterLabels> masters = new ConcurrentHashMap<>();
+
+    MasterLabels get(long master) {
+        return masters.get(master);
+    }
+
+    void put(long master, MasterLabels labels) {
+        masters.put(master, labels);
+    }
+
+    synchronized int getLabelId(String name) {
+        return ids.computeIfAbsent(name, n -> {
+            names.add(n);
+            return names.size() - 1;
+        });
+    }
+
+    synchronized String getLabelName(int id) {
+        return names.get(id);
+    }
+
+    /**
+     * @return the ids of the labels in any of these masters that have the search string in their name, ordered by name
+     */
+    synchronized Map<String, Integer> findLabels(Collection<MasterLabels> results, String search) {
+        Map<String, Integer> found = new TreeMap<>();
+        for (MasterLabels result : results) {
+            for (int label : result.labels) {
+                String name = names.get(label);
+                if (name.contains(search)) {
+                    found.put(name, label);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * example result: https://a.blazemeter.com/api/v4/masters/20884977/reports/aggregatereport/data
+     * "result": [{ "labelName": "ALL", "samples": 100, "avgResponseTime": 48.4, "avgLatency": 48.1, "errorsRate": 0, ... }]
+     */
+    MasterLabels parse(Object response) {
+        List<Map<String, Object>> results = (List<Map<String, Object>>) ((Map<String, Object>) response).get("result");
+
+        Map<Integer, Map<String, Object>> byLabel = new TreeMap<>();
+        for (Map<String, Object> result : results) {
+            byLabel.put(getLabelId((String) result.get("labelName")), result);
+        }
+
+        int[] labels = new int[byLabel.size()];
+        float[][] values = new float[App.LABEL_FIELDS.size()][byLabel.size()];
+        int index = 0;
+        for (Map.Entry<Integer, Map<String, Object>> entry : byLabel.entrySet()) {
+            labels[index] = entry.getKey();
+            for (int metric = 0; metric < values.length; metric++) {
+                Object value = entry.getValue().get(App.LABEL_FIELDS.get(metric));
+                values[metric][index] = value instanceof Number ? ((Number) value).floatValue() : Float.NaN;
+            }
+            index++;
+        }
+        return new MasterLabels(labels, values);
+    }
+}
@@ -0,0 +1,149 @@
+package blazemeter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * the per second timeline of a master that is still running.
+ * we keep a cursor of the last second we have, so each poll only asks blazemeter for the seconds after it
+ */
+class LiveSession {
+
+    private int size;
+    /**
+     * time in seconds, as blazemeter sends it
+     */
+    private long[] times = new long[64];
+    private float[] samples = new float[64];
+    private float[] errors = new float[64];
+    private float[] responseTime = new float[64];
+    private float[] latency = new float[64];
+    private float[] bytes = new float[64];
+
+    /**
+     * @return the time in seconds of the last second we have, or 0 if we have nothing yet
+     */
+    synchronized long getCursor() {
+        return size == 0 ? 0 : times[size - 1];
+    }
+
+    /**
+     * the last second is normally still being filled in when we get it, so anything from the cursor on gets replaced
+     *
+     * example result: https://a.blazemeter.com/api/v4/masters/21103694/reports/timeline/kpis?interval=1&kpis[]=n&labels[]=ALL
+     * "result": [{ "labelName": "ALL", "kpis": [{ "ts": 1571856550, "n": 120, "ec": 2, "t_avg": 48.4, "lt_avg": 48.1, "by_avg": 512 }] }]
+     */
+    synchronized void merge(Object response) {
+        List<Map<String, Object>> results = (List<Map<String, Object>>) ((Map<String, Object>) response).get("result");
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+        List<Map<String, Object>> kpis = (List<Map<String, Object>>) results.get(0).get("kpis");
+
+        for (Map<String, Object> kpi : kpis) {
+            long time = ((Number) kpi.get("ts")).longValue();
+            while (size > 0 && times[size - 1] >= time) {
+                size--;
+            }
+            if (size == times.length) {
+                int length = size * 2;
+                times = Arrays.copyOf(times, length);
+                samples = Arrays.copyOf(samples, length);
+                errors = Arrays.copyOf(errors, length);
+                responseTime = Arrays.copyOf(responseTime, length);
+                latency = Arrays.copyOf(latency, length);
+                bytes = Arrays.copyOf(bytes, length);
+            }
+            times[size] = time;
+            samples[size] = getFloat(kpi, "n");
+            errors[size] = getFloat(kpi, "ec");
+            responseTime[size] = getFloat(kpi, "t_avg");
+            latency[size] = getFloat(kpi, "lt_avg");
+            bytes[size] = getFloat(kpi, "by_avg");
+            size++;
+        }
+    }
+
+    private static float getFloat(Map<String, Object> kpi, String name) {
+        Object value = kpi.get(name);
+        return value instanceof Number ? ((Number) value).floatValue() : 0;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized long getTime(int index) {
+        return times[index] * 1000;
+    }
+
+    synchronized float getSamples(int index) {
+        return samples[index];
+    }
+
+    synchronized float getResponseTime(int index) {
+        return responseTime[index];
+    }
+
+    synchronized float getLatency(int index) {
+        return latency[index];
+    }
+
+    synchronized float getBytes(int index) {
+        return bytes[index];
+    }
+
+    synchronized float getErrorPercent(int index) {
+        return samples[index] == 0 ? 0 : errors[index] * 100 / samples[index];
+    }
+
+    synchronized double getAvgSamples() {
+        return size == 0 ? Double.NaN : sum(samples) / size;
+    }
+
+    synchronized double getAvgResponseTime() {
+        return weightedAvg(responseTime);
+    }
+
+    synchronized double getAvgLatency() {
+        return weightedAvg(latency);
+    }
+
+    synchronized double getAvgBytes() {
+        return weightedAvg(bytes);
+    }
+
+    synchronized double getErrorPercent() {
+        double total = sum(samples);
+        return total == 0 ? 0 : sum(errors) * 100 / total;
+    }
+
+    /**
+     * @return seconds between the first and last second we have
+     */
+    synchronized long getDuration() {
+        return size == 0 ? 0 : times[size - 1] - times[0];
+    }
+
+    /**
+     * each second has a different number of samples, so the average of the whole run has to be weighted by them
+     */
+    private double weightedAvg(float[] values) {
+        double total = 0;
+        double weighted = 0;
+        for (int c = 0; c < size; c++) {
+            total += samples[c];
+            weighted += values[c] * samples[c];
+        }
+        return total == 0 ? Double.NaN : weighted / total;
+    }
+
+    private double sum(float[] values) {
+        double total = 0;
+        for (int c = 0; c < size; c++) {
+            total += values[c];
+        }
+        return total;
+    }
+}
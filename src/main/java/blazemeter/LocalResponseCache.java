@@ -0,0 +1,39 @@
+package blazemeter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * keeps responses in memory of this Lambda container only
+ */
+class LocalResponseCache implements ResponseCache {
+
+    private final Map<String, CachedResponse> responses;
+
+    /**
+     * @param maxSize oldest used responses are dropped after this, as some requests (like live polling) are never asked for again
+     */
+    LocalResponseCache(int maxSize) {
+        responses = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public synchronized CachedResponse get(String request) {
+        return responses.get(request);
+    }
+
+    @Override
+    public synchronized void put(String request, CachedResponse response) {
+        responses.put(request, response);
+    }
+
+    @Override
+    public void putRevalidated(String request, CachedResponse response) {
+        put(request, response);
+    }
+}
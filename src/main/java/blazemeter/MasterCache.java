@@ -0,0 +1,22 @@
+package blazemeter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * static fields live as long as the Lambda container is warm, so anything we keep here
+ * does not need to be worked out again on the next request
+ */
+class MasterCache {
+
+    private final Map<Long, TestHistory> tests = new ConcurrentHashMap<>();
+    private final LabelResults labelResults = new LabelResults();
+
+    TestHistory get(long testId) {
+        return tests.computeIfAbsent(testId, TestHistory::new);
+    }
+
+    LabelResults getLabelResults() {
+        return labelResults;
+    }
+}
@@ -0,0 +1,188 @@
+package blazemeter;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * the written out results of recent queries, so when many people have the same dashboard open,
+ * or it auto-refreshes, the same panel is only worked out once.
+ * grafana sends a new requestId, startTime and a slightly later "__from" on every refresh, so the key only has
+ * the parts of the query that change the results, with the start snapped to a bucket and the targets sorted
+ */
+class QueryCache {
+
+    static class Entry {
+        /**
+         * the written out results of each target, by {@link #getTargetKey(Map)}, so they can be put back in the order of any request
+         */
+        final Map<String, String> targets;
+        /**
+         * the version of every test history these results came from, when they were worked out
+         */
+        final Map<TestHistory, Long> versions;
+        final long time;
+
+        Entry(Map<String, String> targets, Map<TestHistory, Long> versions, long time) {
+            this.targets = targets;
+            this.versions = versions;
+            this.time = time;
+        }
+
+        /**
+         * @param ttl the results can not be used for longer than we trust the blazemeter responses they came from
+         */
+        boolean isValid(long ttl) {
+            return !isExpired(ttl) &&
+                    versions.entrySet().stream().allMatch(version -> version.getKey().getVersion() == version.getValue());
+        }
+
+        boolean isExpired(long ttl) {
+            return System.currentTimeMillis() - time >= ttl;
+        }
+
+        /**
+         * the chars this entry keeps, one dashboard can have a few big tables, so counting entries says little about memory
+         */
+        int getSize() {
+            return targets.entrySet().stream().mapToInt(target -> target.getKey().length() + target.getValue().length()).sum();
+        }
+    }
+
+    private final long bucket;
+    private final long ttl;
+    private final long maxChars;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long chars;
+
+    /**
+     * @param bucket   ms the start of the range is snapped to, 0 to turn off the cache
+     * @param ttl      ms an entry can be used for
+     * @param maxChars oldest used entries are dropped once the keys and results kept are more than this
+     */
+    QueryCache(long bucket, long ttl, long maxChars) {
+        this.bucket = bucket;
+        this.ttl = ttl;
+        this.maxChars = maxChars;
+    }
+
+    boolean isEnabled() {
+        return bucket > 0;
+    }
+
+    /**
+     * the query is worked out from the snapped time too, so everyone in the same bucket gets exactly the same results
+     */
+    long snap(long time) {
+        return isEnabled() ? time - Math.floorMod(time, bucket) : time;
+    }
+
+    /**
+     * @return only the parts of the target that change its results, the refId and hide are left out
+     */
+    static String getTargetKey(Map<String, Object> target) {
+        StringBuilder key = new StringBuilder();
+        appendValue(key, target.get("type"));
+        appendValue(key, target.get("target"));
+        appendValue(key, target.get("data"));
+        return key.toString();
+    }
+
+    /**
+     * map keys are sorted, so {"test":1,"project":2} and {"project":2,"test":1} are the same,
+     * and strings are quoted, as the test "1" is searched for by name but the test 1 is an id
+     */
+    private static void appendValue(StringBuilder key, Object value) {
+        if (value instanceof Map) {
+            key.append('{');
+            new TreeMap<>((Map<String, Object>) value).forEach((k, v) -> {
+                appendValue(key, k);
+                key.append(':');
+                appendValue(key, v);
+            });
+            key.append('}');
+        }
+        else if (value instanceof List) {
+            key.append('[');
+            ((List<Object>) value).forEach(v -> appendValue(key, v));
+            key.append(']');
+        }
+        else if (value instanceof String) {
+            key.append('"').append(((String) value).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        else {
+            key.append(value);
+        }
+        key.append(',');
+    }
+
+    /**
+     * @param workspace  the workspace from the header, used by targets that do not pick their own
+     * @param from       the snapped start of the range
+     * @param resolution what the interval of the panel is rounded to, the raw interval does not matter
+     */
+    static String getKey(Object workspace, long from, RollupStore.Resolution resolution, Collection<String> targets) {
+        return workspace + "|" + from + "|" + resolution + "|" + String.join(",", new TreeSet<>(targets));
+    }
+
+    /**
+     * @return the entry if it can still be used, one that can not is dropped, it would only be worked out again
+     */
+    synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isValid(ttl)) {
+            remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    synchronized void put(String key, Entry entry) {
+        remove(key);
+        // expired entries can never be used again, but would otherwise sit here until pushed out
+        for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Entry> old = it.next();
+            if (old.getValue().isExpired(ttl)) {
+                chars -= getSize(old.getKey(), old.getValue());
+                it.remove();
+            }
+        }
+        long size = getSize(key, entry);
+        if (size > maxChars) {
+            return;
+        }
+        entries.put(key, entry);
+        chars += size;
+        for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); chars > maxChars && it.hasNext(); ) {
+            Map.Entry<String, Entry> eldest = it.next();
+            chars -= getSize(eldest.getKey(), eldest.getValue());
+            it.remove();
+        }
+    }
+
+    private void remove(String key) {
+        Entry old = entries.remove(key);
+        if (old != null) {
+            chars -= getSize(key, old);
+        }
+    }
+
+    private static long getSize(String key, Entry entry) {
+        return key.length() + entry.getSize();
+    }
+
+    /**
+     * @return the chars of all the keys and results kept
+     */
+    synchronized long getChars() {
+        return chars;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
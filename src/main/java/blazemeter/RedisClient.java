@@ -0,0 +1,192 @@
+package blazemeter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * just enough of the redis protocol (RESP) for a cache, so we do not need a redis library in the Lambda jar.
+ * keeps a few idle connections, each used by one request at a time, so requests to redis from the threads of a fan-out
+ * do not wait on each other
+ */
+class RedisClient implements Closeable {
+
+    /**
+     * how many idle connections we keep, more can be opened when needed, but they are closed after
+     */
+    private static final int MAX_IDLE = 8;
+
+    private static class Connection implements Closeable {
+        final Socket socket;
+        final InputStream in;
+        final OutputStream out;
+
+        Connection(String host, int port, int timeout) throws IOException {
+            socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(host, port), timeout);
+                socket.setSoTimeout(timeout);
+                in = new BufferedInputStream(socket.getInputStream());
+                out = new BufferedOutputStream(socket.getOutputStream());
+            }
+            catch (IOException ex) {
+                close();
+                throw ex;
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            }
+            catch (IOException ex) {
+                // nothing we can do, we will make a new one next time
+            }
+        }
+    }
+
+    private final String host;
+    private final int port;
+    private final int timeout;
+
+    private final Deque<Connection> idle = new ArrayDeque<>();
+
+    RedisClient(String host, int port, int timeout) {
+        this.host = host;
+        this.port = port;
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return the value, or null if the key is not there
+     */
+    byte[] get(String key) throws IOException {
+        return call(bytes("GET"), bytes(key));
+    }
+
+    void set(String key, byte[] value, long ttl) throws IOException {
+        call(bytes("SET"), bytes(key), value, bytes("PX"), bytes(String.valueOf(ttl)));
+    }
+
+    /**
+     * keep a key for longer without sending its value again
+     */
+    void expire(String key, long ttl) throws IOException {
+        call(bytes("PEXPIRE"), bytes(key), bytes(String.valueOf(ttl)));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * the lock is only held to take and give back a connection, never while talking to redis
+     */
+    private byte[] call(byte[]... args) throws IOException {
+        Connection connection;
+        synchronized (this) {
+            connection = idle.pollFirst();
+        }
+        if (connection == null) {
+            connection = new Connection(host, port, timeout);
+        }
+
+        byte[] reply;
+        try {
+            send(connection, args);
+            reply = readReply(connection);
+        }
+        catch (IOException | RuntimeException ex) {
+            // we do not know where we are in the stream any more, so start again with a new connection
+            connection.close();
+            throw ex;
+        }
+
+        synchronized (this) {
+            if (idle.size() < MAX_IDLE) {
+                idle.addFirst(connection);
+                connection = null;
+            }
+        }
+        if (connection != null) {
+            connection.close();
+        }
+        return reply;
+    }
+
+    private static void send(Connection connection, byte[]... args) throws IOException {
+        OutputStream out = connection.out;
+        out.write(bytes("*" + args.length + "\r\n"));
+        for (byte[] arg : args) {
+            out.write(bytes("$" + arg.length + "\r\n"));
+            out.write(arg);
+            out.write('\r');
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private static byte[] readReply(Connection connection) throws IOException {
+        InputStream in = connection.in;
+        int type = in.read();
+        String line = readLine(in);
+        switch (type) {
+            case '+':
+            case ':':
+                return bytes(line);
+            case '-':
+                throw new IOException("redis error " + line);
+            case '$':
+                int length = Integer.parseInt(line);
+                if (length < 0) {
+                    return null;
+                }
+                byte[] value = new byte[length];
+                int read = 0;
+                while (read < length) {
+                    int count = in.read(value, read, length - read);
+                    if (count < 0) {
+                        throw new EOFException();
+                    }
+                    read = read + count;
+                }
+                readLine(in);
+                return value;
+            default:
+                throw new IOException("unknown redis reply " + type);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int ch;
+        while ((ch = in.read()) != '\r') {
+            if (ch < 0) {
+                throw new EOFException();
+            }
+            line.write(ch);
+        }
+        in.read(); // '\n'
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * closes the idle connections, a connection that is in use is closed by its own request if redis fails
+     */
+    @Override
+    public synchronized void close() {
+        idle.forEach(Connection::close);
+        idle.clear();
+    }
+}
@@ -0,0 +1,130 @@
+package blazemeter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * a cache shared by all the Lambda containers, so when lots of them are running
+ * only one of them needs to get each response from blazemeter.
+ * responses are also kept in a near cache in this container, and we only ask redis for the small version key
+ * to find out if ours is still the same, only getting the whole response when it has changed.
+ * if redis can not be reached we carry on with just the near cache, and try redis again a bit later
+ */
+class RedisResponseCache implements ResponseCache {
+
+    private static final String PREFIX = "blazemeter:";
+    private static final String VERSION_SUFFIX = ":v";
+
+    /**
+     * how long in ms we use a near response before checking the version in redis again
+     */
+    private static final long NEAR_TTL = 1000;
+    /**
+     * how long redis keeps a response, after that it has to come from blazemeter again
+     */
+    private static final long REMOTE_TTL = 3600000;
+    /**
+     * how long in ms we stop using redis for after it fails
+     */
+    private static final long RETRY_AFTER = 30000;
+
+    private final ResponseCache near;
+    private final RedisClient redis;
+    /**
+     * when each near response was last checked against redis, weak so it goes when the near cache drops the response
+     */
+    private final Map<CachedResponse, Long> checked = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private volatile long downUntil;
+
+    RedisResponseCache(RedisClient redis, ResponseCache near) {
+        this.redis = redis;
+        this.near = near;
+    }
+
+    @Override
+    public CachedResponse get(String request) {
+        CachedResponse local = near.get(request);
+        Long lastChecked = local == null ? null : checked.get(local);
+        if ((lastChecked != null && System.currentTimeMillis() - lastChecked < NEAR_TTL) || !isUp()) {
+            return local;
+        }
+
+        try {
+            if (local != null) {
+                byte[] version = redis.get(PREFIX + request + VERSION_SUFFIX);
+                CachedResponse same = version == null ? local : ResponseCodec.applyVersion(local, version);
+                if (same != null) {
+                    // no need to get the whole response, we already have it
+                    return useNear(request, same);
+                }
+            }
+
+            byte[] data = redis.get(PREFIX + request);
+            if (data == null) {
+                return local;
+            }
+            CachedResponse remote = ResponseCodec.decode(data);
+            if (local != null && remote.time <= local.time) {
+                return useNear(request, local);
+            }
+            return useNear(request, remote);
+        }
+        catch (IOException | RuntimeException ex) {
+            failed(ex);
+            return local;
+        }
+    }
+
+    @Override
+    public void put(String request, CachedResponse response) {
+        useNear(request, response);
+        if (isUp()) {
+            try {
+                redis.set(PREFIX + request, ResponseCodec.encode(response), REMOTE_TTL);
+                redis.set(PREFIX + request + VERSION_SUFFIX, ResponseCodec.encodeVersion(response), REMOTE_TTL);
+            }
+            catch (IOException | RuntimeException ex) {
+                failed(ex);
+            }
+        }
+    }
+
+    /**
+     * the body in redis is still right, so only the small version key is sent, for the new time,
+     * and the body is kept for as long as the version
+     */
+    @Override
+    public void putRevalidated(String request, CachedResponse response) {
+        useNear(request, response);
+        if (isUp()) {
+            try {
+                redis.set(PREFIX + request + VERSION_SUFFIX, ResponseCodec.encodeVersion(response), REMOTE_TTL);
+                redis.expire(PREFIX + request, REMOTE_TTL);
+            }
+            catch (IOException | RuntimeException ex) {
+                failed(ex);
+            }
+        }
+    }
+
+    private CachedResponse useNear(String request, CachedResponse response) {
+        if (near.get(request) != response) {
+            near.put(request, response);
+        }
+        checked.put(response, System.currentTimeMillis());
+        return response;
+    }
+
+    private boolean isUp() {
+        return System.currentTimeMillis() >= downUntil;
+    }
+
+    private void failed(Exception ex) {
+        System.err.println("ERROR shared cache not available, using local cache only " + ex);
+        downUntil = System.currentTimeMillis() + RETRY_AFTER;
+        redis.close();
+    }
+}
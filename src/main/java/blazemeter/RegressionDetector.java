@@ -0,0 +1,97 @@
+package blazemeter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * rolling baseline of each KPI of a single test, so runs that are a lot worse than the runs before them stand out.
+ * the baseline is an exponentially weighted mean and variance, updated once for every finished master as it comes in,
+ * so a long history never has to be gone through again.
+ * each master is scored against the baseline from before it was added, or a big regression would hide itself
+ */
+class RegressionDetector {
+
+    /**
+     * how much weight the latest run gets in the baseline, 0.2 means roughly the last 10 runs count
+     */
+    private static final double ALPHA = 0.2;
+    /**
+     * need at least this many runs before the baseline means anything
+     */
+    private static final int MIN_RUNS = 5;
+    /**
+     * how many standard deviations away from the baseline a run needs to be to count as a regression
+     */
+    static final double THRESHOLD = 3;
+    /**
+     * runs that are all the same have no variance, so never expect less spread than this share of the mean
+     */
+    private static final double MIN_RELATIVE_STD = 0.01;
+    /**
+     * keeps the zscore graph readable when the baseline has almost no spread at all
+     */
+    private static final double MAX_ZSCORE = 10;
+
+    static class Score {
+        final double value;
+        final double baseline;
+        final double std;
+        final double zscore;
+
+        Score(double value, double baseline, double std, double zscore) {
+            this.value = value;
+            this.baseline = baseline;
+            this.std = std;
+            this.zscore = zscore;
+        }
+
+        /**
+         * @param direction 1 if higher is worse (response time), -1 if lower is worse (hits), 0 if any big change is bad
+         */
+        boolean isRegression(int direction) {
+            return direction == 0 ? Math.abs(zscore) >= THRESHOLD : zscore * direction >= THRESHOLD;
+        }
+    }
+
+    private static class Baseline {
+        int runs;
+        double mean;
+        double variance;
+
+        void add(double value) {
+            if (runs++ == 0) {
+                mean = value;
+                return;
+            }
+            double diff = value - mean;
+            double increment = ALPHA * diff;
+            mean = mean + increment;
+            variance = (1 - ALPHA) * (variance + diff * increment);
+        }
+    }
+
+    private final Map<String, Baseline> baselines = new HashMap<>();
+    private final Map<Long, Map<String, Score>> scores = new HashMap<>();
+
+    /**
+     * add the result of a finished master, masters need to be added from oldest to newest
+     */
+    synchronized void add(long master, String kpi, double value) {
+        Baseline baseline = baselines.computeIfAbsent(kpi, k -> new Baseline());
+        if (baseline.runs >= MIN_RUNS) {
+            double std = Math.max(Math.sqrt(baseline.variance), Math.abs(baseline.mean) * MIN_RELATIVE_STD);
+            double zscore = std == 0 ? (value == baseline.mean ? 0 : Math.signum(value - baseline.mean) * MAX_ZSCORE) :
+                    Math.max(-MAX_ZSCORE, Math.min(MAX_ZSCORE, (value - baseline.mean) / std));
+            scores.computeIfAbsent(master, m -> new HashMap<>()).put(kpi, new Score(value, baseline.mean, std, zscore));
+        }
+        baseline.add(value);
+    }
+
+    /**
+     * @return how this master compares to the runs before it, or null if it has not finished or there were not enough runs before it
+     */
+    synchronized Score get(long master, String kpi) {
+        Map<String, Score> masterScores = scores.get(master);
+        return masterScores == null ? null : masterScores.get(kpi);
+    }
+}
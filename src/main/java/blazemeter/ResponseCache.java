@@ -0,0 +1,66 @@
+package blazemeter;
+
+import java.security.MessageDigest;
+
+/**
+ * parsed responses from blazemeter, along with what we need to ask blazemeter if they have changed.
+ * once an entry is older than the TTL we send a conditional request, and if nothing changed we keep the
+ * parsed object we already have, so anything worked out from it can see it is the same object and skip the work
+ *
+ * @see LocalResponseCache
+ * @see RedisResponseCache
+ */
+interface ResponseCache {
+
+    class CachedResponse {
+        final Object value;
+        /**
+         * "ETag" header, or null if blazemeter did not send one
+         */
+        final String etag;
+        /**
+         * "Last-Modified" header, or null if blazemeter did not send one
+         */
+        final String lastModified;
+        /**
+         * hash of the body, for when blazemeter sends neither of the headers
+         */
+        final byte[] hash;
+        final long time;
+
+        CachedResponse(Object value, String etag, String lastModified, byte[] hash, long time) {
+            this.value = value;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.time = time;
+        }
+
+        boolean isFresh(long ttl) {
+            return System.currentTimeMillis() - time < ttl;
+        }
+
+        boolean hasSameBody(byte[] otherHash) {
+            return MessageDigest.isEqual(hash, otherHash);
+        }
+
+        /**
+         * @return the same response, as blazemeter has told us it has not changed
+         */
+        CachedResponse revalidated() {
+            return new CachedResponse(value, etag, lastModified, hash, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * @return the response we have for this request, fresh or not, or null if we have none
+     */
+    CachedResponse get(String request);
+
+    void put(String request, CachedResponse response);
+
+    /**
+     * @param response the response we already have for this request, with only its time changed, as blazemeter says it is the same
+     */
+    void putRevalidated(String request, CachedResponse response);
+}
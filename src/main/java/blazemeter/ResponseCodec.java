@@ -0,0 +1,227 @@
+package blazemeter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * binary format of a {@link ResponseCache.CachedResponse} for the shared cache tier.
+ * master summaries repeat the same keys ("session", "avg", ...) for every master,
+ * so each map key is only written out in full the first time, and after that as its index
+ */
+class ResponseCodec {
+
+    private static final int VERSION = 1;
+
+    private static final int NULL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int LONG = 3;
+    private static final int DOUBLE = 4;
+    private static final int STRING = 5;
+    private static final int LIST = 6;
+    private static final int MAP = 7;
+
+    static byte[] encode(ResponseCache.CachedResponse response) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        out.writeLong(response.time);
+        writeNullableString(out, response.etag);
+        writeNullableString(out, response.lastModified);
+        out.writeShort(response.hash.length);
+        out.write(response.hash);
+        writeValue(out, response.value, new HashMap<>());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static ResponseCache.CachedResponse decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("unknown cache format " + version);
+        }
+        long time = in.readLong();
+        String etag = readNullableString(in);
+        String lastModified = readNullableString(in);
+        byte[] hash = new byte[in.readUnsignedShort()];
+        in.readFully(hash);
+        Object value = readValue(in, new ArrayList<>());
+        return new ResponseCache.CachedResponse(value, etag, lastModified, hash, time);
+    }
+
+    /**
+     * the small version of the response, so other containers can check if theirs is still the same without getting the whole thing
+     */
+    static byte[] encodeVersion(ResponseCache.CachedResponse response) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(response.time);
+        out.write(response.hash);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return our response with the time from the version, if the version is for the same body, or null if it is not
+     */
+    static ResponseCache.CachedResponse applyVersion(ResponseCache.CachedResponse response, byte[] version) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(version));
+        long time = in.readLong();
+        byte[] hash = new byte[version.length - 8];
+        in.readFully(hash);
+        if (!response.hasSameBody(hash)) {
+            return null;
+        }
+        return time == response.time ? response : new ResponseCache.CachedResponse(response.value, response.etag, response.lastModified, response.hash, time);
+    }
+
+    private static void writeValue(DataOutputStream out, Object value, Map<String, Integer> keys) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        }
+        else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        }
+        else if (value instanceof Long || value instanceof Integer) {
+            out.writeByte(LONG);
+            writeVarLong(out, ((Number) value).longValue());
+        }
+        else if (value instanceof Number) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        }
+        else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        }
+        else if (value instanceof List) {
+            List<Object> list = (List<Object>) value;
+            out.writeByte(LIST);
+            writeVarLong(out, list.size());
+            for (Object item : list) {
+                writeValue(out, item, keys);
+            }
+        }
+        else if (value instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) value;
+            out.writeByte(MAP);
+            writeVarLong(out, map.size());
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                Integer index = keys.get(entry.getKey());
+                if (index == null) {
+                    // 0 means a new key follows, anything else is the index + 1 of a key we already wrote
+                    writeVarLong(out, 0);
+                    writeString(out, entry.getKey());
+                    keys.put(entry.getKey(), keys.size());
+                }
+                else {
+                    writeVarLong(out, index + 1);
+                }
+                writeValue(out, entry.getValue(), keys);
+            }
+        }
+        else {
+            throw new IOException("can not write " + value.getClass());
+        }
+    }
+
+    private static Object readValue(DataInputStream in, List<String> keys) throws IOException {
+        int type = in.readUnsignedByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case LONG:
+                return readVarLong(in);
+            case DOUBLE:
+                return in.readDouble();
+            case STRING:
+                return readString(in);
+            case LIST:
+                int size = (int) readVarLong(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int c = 0; c < size; c++) {
+                    list.add(readValue(in, keys));
+                }
+                return list;
+            case MAP:
+                int entries = (int) readVarLong(in);
+                Map<String, Object> map = new HashMap<>();
+                for (int c = 0; c < entries; c++) {
+                    int index = (int) readVarLong(in);
+                    String key;
+                    if (index == 0) {
+                        key = readString(in);
+                        keys.add(key);
+                    }
+                    else {
+                        key = keys.get(index - 1);
+                    }
+                    map.put(key, readValue(in, keys));
+                }
+                return map;
+            default:
+                throw new IOException("unknown type " + type);
+        }
+    }
+
+    /**
+     * zig-zag encoded, 7 bits at a time, so small ids and counts only take a byte or two
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag = zigZag >>> 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long zigZag = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            shift = shift + 7;
+        }
+        while ((b & 0x80) != 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+}
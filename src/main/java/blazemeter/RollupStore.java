@@ -0,0 +1,103 @@
+package blazemeter;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * pre-aggregated KPI values of a single test, bucketed by hour, day and week.
+ * each bucket keeps count, sum, min, max and sum-of-squares, so long range panels
+ * can be drawn from a few hundred buckets instead of every master summary.
+ * buckets are only ever added to, so this is updated incrementally as new masters come in.
+ */
+class RollupStore {
+
+    /**
+     * buckets are in UTC, and as 1970-01-01 was a thursday, weeks are moved on 4 days so they start on a monday
+     */
+    enum Resolution {
+        HOUR(3600000L, 0),
+        DAY(24 * 3600000L, 0),
+        WEEK(7 * 24 * 3600000L, 4 * 24 * 3600000L);
+
+        final long millis;
+        private final long offset;
+
+        Resolution(long millis, long offset) {
+            this.millis = millis;
+            this.offset = offset;
+        }
+
+        long bucketStart(long time) {
+            return time - Math.floorMod(time - offset, millis);
+        }
+    }
+
+    static class Bucket {
+        long count;
+        double sum;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sumOfSquares;
+
+        void add(double value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sumOfSquares += value * value;
+        }
+
+        double getAvg() {
+            return sum / count;
+        }
+
+        double getStd() {
+            double avg = getAvg();
+            return Math.sqrt(Math.max(0, sumOfSquares / count - avg * avg));
+        }
+    }
+
+    private final Map<Resolution, Map<String, TreeMap<Long, Bucket>>> buckets = new EnumMap<>(Resolution.class);
+
+    RollupStore() {
+        for (Resolution resolution : Resolution.values()) {
+            buckets.put(resolution, new HashMap<>());
+        }
+    }
+
+    /**
+     * @return the coarsest resolution whose buckets are not wider than the panel interval,
+     *         or null if the panel wants finer detail than an hour, and so should use the raw masters
+     */
+    static Resolution forInterval(long intervalMs) {
+        Resolution best = null;
+        for (Resolution resolution : Resolution.values()) {
+            if (resolution.millis <= intervalMs) {
+                best = resolution;
+            }
+        }
+        return best;
+    }
+
+    synchronized void add(long time, String kpi, double value) {
+        for (Resolution resolution : Resolution.values()) {
+            buckets.get(resolution).computeIfAbsent(kpi, k -> new TreeMap<>())
+                    .computeIfAbsent(resolution.bucketStart(time), k -> new Bucket())
+                    .add(value);
+        }
+    }
+
+    /**
+     * @return a copy of the buckets for this KPI that overlap the range starting at fromDate, earliest first
+     */
+    synchronized NavigableMap<Long, Bucket> getBuckets(Resolution resolution, String kpi, long fromDate) {
+        TreeMap<Long, Bucket> kpiBuckets = buckets.get(resolution).get(kpi);
+        if (kpiBuckets == null) {
+            return new TreeMap<>();
+        }
+        return new TreeMap<>(kpiBuckets.tailMap(resolution.bucketStart(fromDate), true));
+    }
+}
@@ -0,0 +1,156 @@
+package blazemeter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * the master summaries we have seen for a single test, kept between requests while the Lambda is warm
+ */
+class TestHistory {
+
+    private final long testId;
+    private final RollupStore rollups = new RollupStore();
+    private final RegressionDetector regressions = new RegressionDetector();
+    /**
+     * masters that have already been added to the rollups and regression baselines, so each one is only counted once
+     */
+    private final Set<Long> rolledUp = new HashSet<>();
+    /**
+     * timelines of masters that are still running, dropped as soon as the master has ended
+     */
+    private final Map<Long, LiveSession> live = new ConcurrentHashMap<>();
+    /**
+     * every master we have seen, by start time then id, so we can find the runs in a time range without going through them all.
+     * this keeps masters that are too old to be in the latest summaries
+     */
+    private final TreeMap<Long, Map<Long, Map<String, Object>>> sessions = new TreeMap<>();
+    /**
+     * the longest run we have seen, a run that started this long before a range can still be in it
+     */
+    private long maxDuration;
+
+    private List<Map<String, Object>> masters = Collections.emptyList();
+    /**
+     * goes up every time blazemeter gives us different summaries, so anything worked out from the old ones knows it is out of date
+     */
+    private long version;
+
+    TestHistory(long testId) {
+        this.testId = testId;
+    }
+
+    long getTestId() {
+        return testId;
+    }
+
+    RollupStore getRollups() {
+        return rollups;
+    }
+
+    RegressionDetector getRegressions() {
+        return regressions;
+    }
+
+    /**
+     * @param labels the latest master summaries from blazemeter, newest first
+     */
+    synchronized void update(List<Map<String, Object>> labels) {
+        if (labels == masters) {
+            // the response cache gives us back the same object if blazemeter says nothing has changed
+            return;
+        }
+        masters = labels;
+        version++;
+
+        // go from oldest to newest, and only roll up masters that have finished, as running ones have no results yet
+        for (int c = labels.size() - 1; c >= 0; c--) {
+            Map<String, Object> item = labels.get(c);
+            long start = getSessionStart(item);
+            sessions.computeIfAbsent(start, time -> new HashMap<>()).put((long) item.get("id"), item);
+            maxDuration = Math.max(maxDuration, getSessionEnd(item) - start);
+            if (isEnded(item)) {
+                long id = (long) item.get("id");
+                live.remove(id);
+                if (rolledUp.add(id)) {
+                    long time = App.getSessionTime(item);
+                    for (String kpi : App.SUMMARY_METRICS) {
+                        Number value = App.getTestMetric(item, kpi);
+                        if (value != null) {
+                            rollups.add(time, kpi, value.doubleValue());
+                            regressions.add(id, kpi, value.doubleValue());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the masters that ran since fromDate, newest first
+     */
+    synchronized List<Map<String, Object>> getMasters(long fromDate) {
+        return masters.stream().filter(item -> App.getSessionTime(item) >= fromDate).collect(Collectors.toList());
+    }
+
+    synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return true if any of the latest masters are still running, so their results change on every poll
+     */
+    synchronized boolean hasRunningMasters() {
+        return masters.stream().anyMatch(item -> !isEnded(item));
+    }
+
+    /**
+     * @return the masters that were running at any point between from and to, earliest first
+     */
+    synchronized List<Map<String, Object>> getSessions(long from, long to) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        sessions.subMap(from - maxDuration, true, to, true).values().forEach(masters -> masters.values().forEach(item -> {
+            if (getSessionEnd(item) >= from) {
+                result.add(item);
+            }
+        }));
+        return result;
+    }
+
+    static long getSessionStart(Map<String, Object> item) {
+        Map<String, Object> session = (Map) item.get("session");
+        return (long) session.get("created") * 1000;
+    }
+
+    /**
+     * @return when the master ended, or when it was last updated if it is still running
+     */
+    static long getSessionEnd(Map<String, Object> item) {
+        Map<String, Object> session = (Map) item.get("session");
+        Object ended = session.get("ended");
+        return (long) (ended != null ? ended : session.get("updated")) * 1000;
+    }
+
+    LiveSession getLiveSession(long master) {
+        return live.computeIfAbsent(master, id -> new LiveSession());
+    }
+
+    /**
+     * @return the timeline we have polled for this running master, or null if we have not polled it
+     */
+    LiveSession findLiveSession(long master) {
+        return live.get(master);
+    }
+
+    static boolean isEnded(Map<String, Object> item) {
+        Map<String, Object> session = (Map) item.get("session");
+        return session.get("ended") != null;
+    }
+}
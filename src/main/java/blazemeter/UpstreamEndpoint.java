@@ -0,0 +1,246 @@
+package blazemeter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * what we know about one kind of blazemeter request, e.g. "masters/{id}/reports/errorsreport/data".
+ * keeps the recent latencies so we know when a request is taking unusually long and is worth hedging,
+ * and a circuit breaker so when blazemeter is failing or slow we stop waiting on it
+ */
+class UpstreamEndpoint {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * blazemeter answered, but with an error status
+     */
+    static class StatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        StatusException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    interface Call<T> {
+        T send() throws IOException;
+    }
+
+    /**
+     * how many latencies we keep to work out the hedge delay
+     */
+    private static final int LATENCY_SAMPLES = 100;
+    /**
+     * need at least this many latencies before we trust the percentile
+     */
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final double HEDGE_PERCENTILE = 0.95;
+    /**
+     * never hedge sooner than this, even if blazemeter is normally very fast
+     */
+    private static final long MIN_HEDGE_DELAY = 50;
+    /**
+     * at most this share of requests can be hedged, so hedging only ever adds a little load on blazemeter
+     */
+    private static final double HEDGE_BUDGET = 0.1;
+
+    /**
+     * the circuit breaker looks at this many of the latest calls
+     */
+    private static final int WINDOW = 20;
+    private static final int MIN_CALLS = 10;
+    private static final double FAILURE_RATE = 0.5;
+    private static final double SLOW_CALL_RATE = 0.8;
+    private static final long SLOW_CALL = 5000;
+    /**
+     * how long in ms we fail fast for before letting a single request through to see if blazemeter is back
+     */
+    private static final long OPEN_FOR = 30000;
+
+    private final String name;
+
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+
+    private final boolean[] failed = new boolean[WINDOW];
+    private final boolean[] slow = new boolean[WINDOW];
+    private int calls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialRunning;
+
+    private long requests;
+    private long failures;
+    private long slowCalls;
+    private long hedges;
+    private long hedgesWon;
+    private long rejected;
+    private long servedStale;
+    private long opened;
+
+    UpstreamEndpoint(String name) {
+        this.name = name;
+    }
+
+    /**
+     * "masters/20884977/reports/errorsreport/data" becomes "masters/{id}/reports/errorsreport/data"
+     */
+    static String getName(String request) {
+        int query = request.indexOf('?');
+        String path = query < 0 ? request : request.substring(0, query);
+        return path.replaceAll("(^|/)\\d+(?=/|$)", "$1{id}");
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return false if the circuit is open and the request should fail fast
+     */
+    synchronized boolean allowRequest() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= OPEN_FOR) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.CLOSED || (state == State.HALF_OPEN && !trialRunning)) {
+            trialRunning = state == State.HALF_OPEN;
+            requests++;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    /**
+     * @return true if the error means blazemeter is in trouble, a 404 for a wrong test id is our problem, not theirs,
+     *         but a 5xx, a timeout or not being able to connect all count
+     */
+    static boolean isFailure(IOException ex) {
+        return !(ex instanceof StatusException) || ((StatusException) ex).status >= 500;
+    }
+
+    /**
+     * sends the request, and records how long it took and if it failed, even when it throws
+     */
+    <T> T call(Call<T> call) throws IOException {
+        long start = System.currentTimeMillis();
+        boolean failure = true;
+        try {
+            T value = call.send();
+            failure = false;
+            return value;
+        }
+        catch (IOException ex) {
+            failure = isFailure(ex);
+            throw ex;
+        }
+        finally {
+            record(System.currentTimeMillis() - start, failure);
+        }
+    }
+
+    synchronized void record(long latency, boolean failure) {
+        latencies[latencyCount++ % LATENCY_SAMPLES] = latency;
+
+        boolean isSlow = latency >= SLOW_CALL;
+        failed[calls % WINDOW] = failure;
+        slow[calls % WINDOW] = isSlow;
+        calls++;
+        if (failure) {
+            failures++;
+        }
+        if (isSlow) {
+            slowCalls++;
+        }
+
+        if (state == State.HALF_OPEN) {
+            trialRunning = false;
+            if (failure || isSlow) {
+                open();
+            }
+            else {
+                state = State.CLOSED;
+                calls = 0;
+            }
+        }
+        else if (state == State.CLOSED && calls >= MIN_CALLS) {
+            int count = Math.min(calls, WINDOW);
+            int failedCount = 0;
+            int slowCount = 0;
+            for (int c = 0; c < count; c++) {
+                failedCount += failed[c] ? 1 : 0;
+                slowCount += slow[c] ? 1 : 0;
+            }
+            if (failedCount >= count * FAILURE_RATE || slowCount >= count * SLOW_CALL_RATE) {
+                open();
+            }
+        }
+    }
+
+    private void open() {
+        System.err.println("ERROR circuit open for " + name);
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        opened++;
+        calls = 0;
+    }
+
+    /**
+     * @return how long in ms to wait for a response before sending a second one, or -1 if we do not know enough to hedge yet
+     */
+    synchronized long getHedgeDelay() {
+        int count = Math.min(latencyCount, LATENCY_SAMPLES);
+        if (count < MIN_LATENCY_SAMPLES) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return Math.max(MIN_HEDGE_DELAY, sorted[(int) (count * HEDGE_PERCENTILE)]);
+    }
+
+    /**
+     * @return true if there is enough hedge budget left to send a hedged request
+     */
+    synchronized boolean tryHedge() {
+        if (state != State.CLOSED || hedges >= requests * HEDGE_BUDGET) {
+            return false;
+        }
+        hedges++;
+        return true;
+    }
+
+    synchronized void hedgeWon() {
+        hedgesWon++;
+    }
+
+    synchronized void servedStale() {
+        servedStale++;
+    }
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("endpoint", name);
+        stats.put("state", state.name());
+        stats.put("requests", requests);
+        stats.put("failures", failures);
+        stats.put("slow", slowCalls);
+        stats.put("hedges", hedges);
+        stats.put("hedgesWon", hedgesWon);
+        stats.put("hedgeDelay", getHedgeDelay());
+        stats.put("rejected", rejected);
+        stats.put("servedStale", servedStale);
+        stats.put("opened", opened);
+        return stats;
+    }
+}
@@ -0,0 +1,112 @@
+package blazemeter;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * everything we keep for a single blazemeter workspace, so one Lambda can serve many workspaces
+ * without their caches or upstream requests getting in each others way
+ */
+class Workspace {
+
+    /**
+     * how long a test name search is trusted before we ask blazemeter again, so new tests still show up
+     */
+    private static final long CATALOG_TTL = 60000;
+
+    private static class CatalogEntry {
+        final List<Map<String, Object>> tests;
+        final long time = System.currentTimeMillis();
+
+        CatalogEntry(List<Map<String, Object>> tests) {
+            this.tests = tests;
+        }
+    }
+
+    private final int id;
+    private final int quota;
+    private final MasterCache masterCache = new MasterCache();
+    /**
+     * blazemeter responses for this workspace only, so a heavy workspace can not push everyone elses out
+     */
+    private final ResponseCache responseCache;
+    private final Map<String, CatalogEntry> catalog = new ConcurrentHashMap<>();
+
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+    private int running;
+
+    Workspace(int id, int quota, ResponseCache responseCache) {
+        this.id = id;
+        this.quota = quota;
+        this.responseCache = responseCache;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    MasterCache getMasterCache() {
+        return masterCache;
+    }
+
+    ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * @return the tests found for this search, or null if we have not searched for it recently
+     */
+    List<Map<String, Object>> getCatalog(String search) {
+        CatalogEntry entry = catalog.get(search);
+        return entry == null || System.currentTimeMillis() - entry.time > CATALOG_TTL ? null : entry.tests;
+    }
+
+    void putCatalog(String search, List<Map<String, Object>> tests) {
+        catalog.put(search, new CatalogEntry(tests));
+    }
+
+    /**
+     * all workspaces share the same upstream executor, but each one can only have its quota of requests running at once,
+     * anything over that waits here until one of its own requests finishes, so a heavy workspace only slows itself down
+     */
+    <T> CompletableFuture<T> schedule(Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> task.get().whenComplete((value, ex) -> {
+            finished();
+            if (ex != null) {
+                result.completeExceptionally(ex);
+            }
+            else {
+                result.complete(value);
+            }
+        });
+
+        synchronized (this) {
+            if (running >= quota) {
+                waiting.add(start);
+                return result;
+            }
+            running++;
+        }
+        start.run();
+        return result;
+    }
+
+    private void finished() {
+        Runnable next;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) {
+                running--;
+                return;
+            }
+        }
+        // hand our slot straight over to the next waiting request
+        next.run();
+    }
+}
@@ -12,11 +12,20 @@ public class GatewayResponse {
     private final String body;
     private final Map<String, String> headers;
     private final int statusCode;
+    private final boolean isBase64Encoded;
 
     public GatewayResponse(final String body, final Map<String, String> headers, final int statusCode) {
+        this(body, headers, statusCode, false);
+    }
+
+    /**
+     * @param isBase64Encoded true if the body is binary (like compressed), API Gateway will decode it before sending it on
+     */
+    public GatewayResponse(final String body, final Map<String, String> headers, final int statusCode, final boolean isBase64Encoded) {
         this.statusCode = statusCode;
         this.body = body;
         this.headers = Collections.unmodifiableMap(new HashMap<>(headers));
+        this.isBase64Encoded = isBase64Encoded;
     }
 
     public String getBody() {
@@ -30,4 +39,11 @@ public class GatewayResponse {
     public int getStatusCode() {
         return statusCode;
     }
+
+    /**
+     * named like this so the field comes out as "isBase64Encoded", which is what API Gateway looks for
+     */
+    public boolean getIsBase64Encoded() {
+        return isBase64Encoded;
+    }
 }
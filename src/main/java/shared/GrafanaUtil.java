@@ -1,7 +1,6 @@
 package shared;
 
-import java.util.HashMap;
-import java.util.List;
+import java.time.Instant;
 import java.util.Map;
 
 public class GrafanaUtil {
@@ -13,38 +12,15 @@ public class GrafanaUtil {
     public static final int TIMESERIES_VALUE_COL = 0;
     public static final int TIMESERIES_TIME_COL = 1;
 
-    public static final Map<String, String> TABLE_COL_TIME = newColumn("Time", "time");
-
-    public static Map<String,String> newColumn(String text, String type) {
-        Map<String, String> col = new HashMap<>();
-        col.put("text", text);
-        col.put("type", type);
-        return col;
-    }
-
-    /**
-     * @param target     the metric to show
-     * @param datapoints the points, starting from small/earliest to large/latest
-     * @return
-     */
-    public static Map<String, Object> newTimeseriesResult(String target, List<List<Number>> datapoints) {
-        Map<String, Object> resultForTarget = new HashMap<>();
-        resultForTarget.put("target", target);
-        resultForTarget.put("datapoints", datapoints);
-        return resultForTarget;
-    }
-
     /**
-     * @param columns   description of each col of the table
-     * @param rows      the rows of the table, starting from small/earliest to large/latest
-     * @return
+     * values we keep as float would come out as 48.400001525878906 for 48.4f, so we use the shortest decimal
+     * that is still exactly the same float. whole numbers, like 16777216f, are already exact, so are returned as they are
      */
-    public static Map<String, Object> newTableResult(List<Map<String, String>> columns, List<List<Number>> rows) {
-        Map<String, Object> resultForTarget = new HashMap<>();
-        resultForTarget.put("type", TYPE_TABLE);
-        resultForTarget.put("columns", columns);
-        resultForTarget.put("rows", rows);
-        return resultForTarget;
+    public static double toDouble(float value) {
+        if (value == (long) value || Float.isNaN(value) || Float.isInfinite(value)) {
+            return value;
+        }
+        return Double.parseDouble(Float.toString(value));
     }
 
     /**
@@ -71,4 +47,23 @@ public class GrafanaUtil {
         Map<String, Object> __from = (Map<String, Object>) scopedVars.get("__from");
         return Long.parseLong((String)__from.get("value"));
     }
+
+    /**
+     * @return the "intervalMs" grafana picked for the width of the panel, or 0 if it did not send one
+     */
+    public static long getInterval(Map<String, Object> query) {
+        Object intervalMs = query.get("intervalMs");
+        return intervalMs instanceof Number ? ((Number) intervalMs).longValue() : 0L;
+    }
+
+    /**
+     * @param name "from" or "to"
+     * @return the time in ms of that end of the "range", e.g. "range":{"from":"2019-09-18T12:05:13.108Z","to":"2019-10-18T12:05:13.109Z"}
+     *         or the default if the request has no range
+     */
+    public static long getRange(Map<String, Object> query, String name, long defaultValue) {
+        Map<String, Object> range = (Map<String, Object>) query.get("range");
+        Object value = range == null ? null : range.get(name);
+        return value == null ? defaultValue : Instant.parse((String) value).toEpochMilli();
+    }
 }
@@ -0,0 +1,244 @@
+package shared;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * writes {@link TimeseriesResult} and {@link TableResult} straight out as the JSON grafana expects,
+ * without going through generic maps and boxed numbers.
+ * numbers are written into a buffer that is reused between requests, so there is no String for every value.
+ * not thread safe, each handler should have its own
+ */
+public class GrafanaWriter {
+
+    private static final long[] POWERS_OF_10 = new long[16];
+
+    static {
+        POWERS_OF_10[0] = 1;
+        for (int c = 1; c < POWERS_OF_10.length; c++) {
+            POWERS_OF_10[c] = POWERS_OF_10[c - 1] * 10;
+        }
+    }
+
+    /**
+     * doubles are written with this many significant digits, so rounding errors like 48.400000000000006 come out as 48.4
+     */
+    private static final int SIGNIFICANT_DIGITS = 15;
+
+    private final char[] buffer = new char[8192];
+    private final char[] digits = new char[20];
+    private int pos;
+    private Writer out;
+
+    /**
+     * @param results a list of {@link TimeseriesResult} and {@link TableResult}
+     */
+    public void write(Writer out, List<?> results) throws IOException {
+        write(out, results, true);
+    }
+
+    /**
+     * same as {@link #write(Writer, List)} but without the [] around the results,
+     * so results written at different times can be joined together into one response
+     */
+    public void writeItems(Writer out, List<?> results) throws IOException {
+        write(out, results, false);
+    }
+
+    private void write(Writer out, List<?> results, boolean array) throws IOException {
+        this.out = out;
+        pos = 0;
+        try {
+            if (array) {
+                write('[');
+            }
+            for (int c = 0; c < results.size(); c++) {
+                if (c > 0) {
+                    write(',');
+                }
+                Object result = results.get(c);
+                if (result instanceof TimeseriesResult) {
+                    writeTimeseries((TimeseriesResult) result);
+                }
+                else if (result instanceof TableResult) {
+                    writeTable((TableResult) result);
+                }
+                else {
+                    throw new IllegalArgumentException("unknown result " + result);
+                }
+            }
+            if (array) {
+                write(']');
+            }
+            flush();
+            out.flush();
+        }
+        finally {
+            this.out = null;
+        }
+    }
+
+    private void writeTimeseries(TimeseriesResult result) throws IOException {
+        write("{\"target\":");
+        writeString(result.getTarget());
+        write(",\"datapoints\":[");
+        for (int c = 0; c < result.size(); c++) {
+            if (c > 0) {
+                write(',');
+            }
+            write('[');
+            writeDouble(result.getValue(c));
+            write(',');
+            writeLong(result.getTime(c));
+            write(']');
+        }
+        write("]}");
+    }
+
+    private void writeTable(TableResult result) throws IOException {
+        write("{\"type\":\"" + GrafanaUtil.TYPE_TABLE + "\",\"columns\":[");
+        for (int c = 0; c < result.getColumnCount(); c++) {
+            if (c > 0) {
+                write(',');
+            }
+            write("{\"text\":");
+            writeString(result.getColumnText(c));
+            write(",\"type\":");
+            writeString(result.getColumnType(c));
+            write('}');
+        }
+        write("],\"rows\":[");
+        int values = result.getColumnCount() - 1;
+        for (int row = 0; row < result.getRowCount(); row++) {
+            if (row > 0) {
+                write(',');
+            }
+            write('[');
+            writeLong(result.getTime(row));
+            for (int c = 0; c < values; c++) {
+                write(',');
+                writeDouble(result.getValue(row, c));
+            }
+            write(']');
+        }
+        write("]}");
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            // a target with no "target" name
+            write("null");
+            return;
+        }
+        write('"');
+        for (int c = 0; c < value.length(); c++) {
+            char ch = value.charAt(c);
+            if (ch == '"' || ch == '\\') {
+                write('\\');
+                write(ch);
+            }
+            else if (ch < ' ') {
+                write("\\u00");
+                write(Character.forDigit(ch >> 4, 16));
+                write(Character.forDigit(ch & 0xF, 16));
+            }
+            else {
+                write(ch);
+            }
+        }
+        write('"');
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            // can not be negated
+            write(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            write('-');
+            value = -value;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (char) ('0' + value % 10);
+            value = value / 10;
+        }
+        while (value != 0);
+        while (length > 0) {
+            write(digits[--length]);
+        }
+    }
+
+    /**
+     * NaN is how the results say there is no value
+     */
+    private void writeDouble(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            write("null");
+            return;
+        }
+        double abs = Math.abs(value);
+        if (value == (long) value && abs < POWERS_OF_10[SIGNIFICANT_DIGITS]) {
+            writeLong((long) value);
+            return;
+        }
+        if (abs < 1e-4 || abs >= POWERS_OF_10[SIGNIFICANT_DIGITS]) {
+            // very small or very large numbers are rare, so not worth avoiding the String for
+            write(Double.toString(value));
+            return;
+        }
+
+        long whole = (long) abs;
+        int decimals = SIGNIFICANT_DIGITS - (whole == 0 ? 0 : countDigits(whole));
+        long scale = POWERS_OF_10[decimals];
+        long fraction = Math.round((abs - whole) * scale);
+        if (fraction >= scale) {
+            whole++;
+            fraction = fraction - scale;
+        }
+        while (fraction != 0 && fraction % 10 == 0) {
+            fraction = fraction / 10;
+            decimals--;
+        }
+
+        if (value < 0) {
+            write('-');
+        }
+        writeLong(whole);
+        if (fraction != 0) {
+            write('.');
+            for (int c = countDigits(fraction); c < decimals; c++) {
+                write('0');
+            }
+            writeLong(fraction);
+        }
+    }
+
+    private static int countDigits(long value) {
+        int count = 1;
+        while (count < POWERS_OF_10.length && value >= POWERS_OF_10[count]) {
+            count++;
+        }
+        return count;
+    }
+
+    private void write(String value) throws IOException {
+        for (int c = 0; c < value.length(); c++) {
+            write(value.charAt(c));
+        }
+    }
+
+    private void write(char ch) throws IOException {
+        if (pos == buffer.length) {
+            flush();
+        }
+        buffer[pos++] = ch;
+    }
+
+    private void flush() throws IOException {
+        out.write(buffer, 0, pos);
+        pos = 0;
+    }
+}
@@ -0,0 +1,145 @@
+package shared;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * the body of a response for API Gateway.
+ * small responses are kept as they are, but once the body goes over the threshold everything written is
+ * compressed and base64 encoded as it comes in, so the uncompressed body is never held in memory as a whole
+ */
+public class ResponseBody extends Writer {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    private final String encoding;
+    private final int threshold;
+
+    private final StringBuilder plain = new StringBuilder();
+    private ByteArrayOutputStream compressed;
+    private Writer compressing;
+
+    /**
+     * @param encoding  {@link #GZIP}, {@link #DEFLATE} or null to never compress
+     * @param threshold how many chars the body needs to be before it is worth compressing
+     */
+    public ResponseBody(String encoding, int threshold) {
+        this.encoding = encoding;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param acceptEncoding the "Accept-Encoding" header from the request, can be null
+     * @return {@link #GZIP} or {@link #DEFLATE} if the client accepts them, or null if it accepts neither
+     */
+    public static String getEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        // null if the coding is not named, otherwise if it is accepted
+        Boolean gzip = null;
+        Boolean deflate = null;
+        boolean any = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String name = params[0].trim().toLowerCase();
+            boolean accepted = true;
+            for (int c = 1; c < params.length; c++) {
+                String param = params[c].trim();
+                if (param.startsWith("q=")) {
+                    accepted = isAccepted(param.substring(2));
+                }
+            }
+            if (GZIP.equals(name)) {
+                gzip = accepted;
+            }
+            else if (DEFLATE.equals(name)) {
+                deflate = accepted;
+            }
+            else if ("*".equals(name)) {
+                any = accepted;
+            }
+        }
+        // "*" only means the codings that are not named, so "gzip;q=0, *" still does not want gzip
+        if (gzip != null ? gzip : any) {
+            return GZIP;
+        }
+        return (deflate != null ? deflate : any) ? DEFLATE : null;
+    }
+
+    /**
+     * @param quality the "q" of a coding, a bad one means we do not know if it is accepted, so we treat it as not
+     */
+    private static boolean isAccepted(String quality) {
+        try {
+            return Double.parseDouble(quality.trim()) > 0;
+        }
+        catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (compressing == null) {
+            if (encoding == null || plain.length() + len <= threshold) {
+                plain.append(cbuf, off, len);
+                return;
+            }
+            startCompressing();
+        }
+        compressing.write(cbuf, off, len);
+    }
+
+    private void startCompressing() throws IOException {
+        compressed = new ByteArrayOutputStream();
+        OutputStream base64 = Base64.getEncoder().wrap(compressed);
+        OutputStream out = GZIP.equals(encoding) ? new GZIPOutputStream(base64, 8192) : new DeflaterOutputStream(base64);
+        compressing = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        compressing.append(plain);
+        plain.setLength(0);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // nothing to do until close, flushing the compressor early would only make the body bigger
+    }
+
+    /**
+     * must be called before {@link #toString()} so the compressed body is finished
+     */
+    @Override
+    public void close() throws IOException {
+        if (compressing != null) {
+            compressing.close();
+        }
+    }
+
+    /**
+     * @return true if the body is compressed with the encoding, and base64 encoded
+     */
+    public boolean isCompressed() {
+        return compressing != null;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    @Override
+    public String toString() {
+        if (compressed != null) {
+            // base64 is all ASCII
+            return new String(compressed.toByteArray(), StandardCharsets.ISO_8859_1);
+        }
+        return plain.toString();
+    }
+}
@@ -0,0 +1,111 @@
+package shared;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * a grafana table, the first column is always the time, the values of all the other columns
+ * are kept row after row in a single primitive array. NaN values are written as null
+ */
+public class TableResult {
+
+    private final List<String> texts = new ArrayList<>();
+    private final List<String> types = new ArrayList<>();
+
+    private long[] times = new long[16];
+    private double[] values = new double[0];
+    private int rows;
+    /**
+     * how many values have been added to the current row
+     */
+    private int filled;
+
+    public TableResult() {
+        addColumn("Time", "time");
+    }
+
+    /**
+     * all columns need to be added before the first row
+     */
+    public void addColumn(String text, String type) {
+        texts.add(text);
+        types.add(type);
+    }
+
+    public int getColumnCount() {
+        return texts.size();
+    }
+
+    public String getColumnText(int column) {
+        return texts.get(column);
+    }
+
+    public String getColumnType(int column) {
+        return types.get(column);
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public long getTime(int row) {
+        return times[row];
+    }
+
+    /**
+     * @param column the column, not counting the time column, so 0 is the first value after the time
+     */
+    public double getValue(int row, int column) {
+        return values[row * getValueCount() + column];
+    }
+
+    private int getValueCount() {
+        return texts.size() - 1;
+    }
+
+    public void addRow(long time) {
+        if (rows > 0 && filled != getValueCount()) {
+            throw new IllegalStateException("row " + (rows - 1) + " has " + filled + " values, expected " + getValueCount());
+        }
+        if (rows == times.length) {
+            times = Arrays.copyOf(times, rows * 2);
+        }
+        if ((rows + 1) * getValueCount() > values.length) {
+            values = Arrays.copyOf(values, Math.max(16, times.length * getValueCount()));
+        }
+        times[rows++] = time;
+        filled = 0;
+    }
+
+    public void addValue(double value) {
+        values[(rows - 1) * getValueCount() + filled++] = value;
+    }
+
+    public void addValue(float value) {
+        addValue(GrafanaUtil.toDouble(value));
+    }
+
+    /**
+     * @param value can be null if there is no value in this cell
+     */
+    public void addValue(Number value) {
+        addValue(value == null ? Double.NaN : value.doubleValue());
+    }
+
+    /**
+     * grafana expects items to be earliest to latest order, or the tooltip wont work
+     */
+    public void reverse() {
+        int width = getValueCount();
+        double[] row = new double[width];
+        for (int a = 0, b = rows - 1; a < b; a++, b--) {
+            long time = times[a];
+            times[a] = times[b];
+            times[b] = time;
+            System.arraycopy(values, a * width, row, 0, width);
+            System.arraycopy(values, b * width, values, a * width, width);
+            System.arraycopy(row, 0, values, b * width, width);
+        }
+    }
+}
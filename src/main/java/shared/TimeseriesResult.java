@@ -0,0 +1,70 @@
+package shared;
+
+import java.util.Arrays;
+
+/**
+ * a single grafana series, kept as primitive arrays so it can be written out without boxing every point.
+ * NaN values are written as null
+ */
+public class TimeseriesResult {
+
+    private final String target;
+    private long[] times = new long[16];
+    private double[] values = new double[16];
+    private int size;
+
+    public TimeseriesResult(String target) {
+        this.target = target;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTime(int index) {
+        return times[index];
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    public void add(double value, long time) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        times[size] = time;
+        values[size] = value;
+        size++;
+    }
+
+    public void add(float value, long time) {
+        add(GrafanaUtil.toDouble(value), time);
+    }
+
+    /**
+     * @param value can be null if there is no value at this time
+     */
+    public void add(Number value, long time) {
+        add(value == null ? Double.NaN : value.doubleValue(), time);
+    }
+
+    /**
+     * grafana expects items to be earliest to latest order, or the tooltip wont work
+     */
+    public void reverse() {
+        for (int a = 0, b = size - 1; a < b; a++, b--) {
+            long time = times[a];
+            times[a] = times[b];
+            times[b] = time;
+            double value = values[a];
+            values[a] = values[b];
+            values[b] = value;
+        }
+    }
+}
@@ -80,7 +80,7 @@ public class AppTest {
   }
 
   /**
-   * @see App#newMultiTestTable(String, List, String, long)
+   * @see App#newMultiTestTable(Workspace, String, List, String, long)
    */
   @Test
   public void multi_test_table() throws Exception {
@@ -139,6 +139,76 @@ public class AppTest {
     GrafanaTestUtil.assertTableCorrect(content);
   }
 
+  @Test
+  public void label_timeseries() throws Exception {
+    App app = new App();
+    Map<String, Object> input = new HashMap<>();
+    input.put("path", "/query");
+    input.put("body", "{\"targets\":[{\"data\":{\"test\":\"pets-varied-typical-and-anomalous-requests.jmx-mock\",\"label\":\"ALL\"},\"target\":\"latency\",\"type\":\"timeseries\"}]}");
+    GatewayResponse result = app.handleRequest(input, null);
+    String content = result.getBody();
+    assertNotNull(content);
+
+    System.out.println(content);
+    GrafanaTestUtil.assertTimeseriesCorrect(content);
+  }
+
+  @Test
+  public void label_table() throws Exception {
+    App app = new App();
+    Map<String, Object> input = new HashMap<>();
+    input.put("path", "/query");
+    input.put("body", "{\"targets\":[{\"data\":{\"test\":\"pets-varied-typical-and-anomalous-requests.jmx-mock\",\"label\":\"\"},\"target\":\"time\",\"type\":\"table\"}]}");
+    GatewayResponse result = app.handleRequest(input, null);
+    String content = result.getBody();
+    assertNotNull(content);
+
+    System.out.println(content);
+    GrafanaTestUtil.assertTableCorrect(content);
+  }
+
+  @Test
+  public void live_timeseries() throws Exception {
+    App app = new App();
+    Map<String, Object> input = new HashMap<>();
+    input.put("path", "/query");
+    input.put("body", "{\"targets\":[{\"data\":{\"test\":\"pets-1000-attack-requests.jmx-gpu\",\"live\":true},\"target\":\"time\",\"type\":\"timeseries\"}]}");
+    GatewayResponse result = app.handleRequest(input, null);
+    String content = result.getBody();
+    assertNotNull(content);
+
+    System.out.println(content);
+    GrafanaTestUtil.assertTimeseriesCorrect(content);
+  }
+
+  @Test
+  public void regression_timeseries() throws Exception {
+    App app = new App();
+    Map<String, Object> input = new HashMap<>();
+    input.put("path", "/query");
+    input.put("body", "{\"targets\":[{\"data\":\"pets-varied-typical-and-anomalous-requests.jmx-mock\",\"target\":\"time:zscore\",\"type\":\"timeseries\"}]}");
+    GatewayResponse result = app.handleRequest(input, null);
+    String content = result.getBody();
+    assertNotNull(content);
+
+    System.out.println(content);
+    GrafanaTestUtil.assertTimeseriesCorrect(content);
+  }
+
+  @Test
+  public void regression_table() throws Exception {
+    App app = new App();
+    Map<String, Object> input = new HashMap<>();
+    input.put("path", "/query");
+    input.put("body", "{\"targets\":[{\"data\":\"pets-varied-typical-and-anomalous-requests.jmx-mock\",\"target\":\"latency:regression\",\"type\":\"table\"}]}");
+    GatewayResponse result = app.handleRequest(input, null);
+    String content = result.getBody();
+    assertNotNull(content);
+
+    System.out.println(content);
+    GrafanaTestUtil.assertTableCorrect(content);
+  }
+
   @Test
   public void get_annotation() throws Exception {
 
@@ -153,4 +223,20 @@ public class AppTest {
 
     System.out.println(content);
   }
+
+  @Test
+  public void get_annotation_for_test() throws Exception {
+
+    App app = new App();
+    Map<String, Object> input = new HashMap<>();
+    input.put("path", "/annotations");
+    input.put("body", "{\"annotation\": {\"name\": \"Test runs\",\"datasource\": \"Blazemeter\",\"enable\": true,\"iconColor\": \"rgba(0, 211, 255, 1)\",\"query\": \"pets-varied-typical-and-anomalous-requests.jmx-mock\"},\"range\": {\"from\": \"2019-09-18T12:05:13.108Z\",\"to\": \"2030-10-18T12:05:13.109Z\"}}");
+    GatewayResponse result = app.handleRequest(input, null);
+    assertEquals(result.getStatusCode(), 200);
+
+    String content = result.getBody();
+    assertNotNull(content);
+
+    System.out.println(content);
+  }
 }
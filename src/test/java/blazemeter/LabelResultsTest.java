@@ -0,0 +1,60 @@
+package blazemeter;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Map;
+import net.yura.io.JSONUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LabelResultsTest {
+
+    private static Object load(String json) throws Exception {
+        return new JSONUtil().load(new StringReader(json));
+    }
+
+    @Test
+    public void parse() throws Exception {
+        LabelResults labelResults = new LabelResults();
+        LabelResults.MasterLabels result = labelResults.parse(load("{\"result\":[" +
+                "{\"labelName\":\"ALL\",\"samples\":300,\"avgThroughput\":10.5,\"avgResponseTime\":48.4,\"avgLatency\":48.1,\"errorsRate\":0,\"avgBytes\":512,\"stDev\":3.2,\"duration\":30}," +
+                "{\"labelName\":\"GET /pets\",\"samples\":200,\"avgThroughput\":7,\"avgResponseTime\":40,\"errorsRate\":1.5}," +
+                "{\"labelName\":\"POST /pets\",\"samples\":100,\"avgThroughput\":3.5,\"avgResponseTime\":64.8,\"errorsRate\":null}]}"));
+
+        // labels are sorted by dictionary id, which is the order they were first seen in
+        assertArrayEquals(new int[]{0, 1, 2}, result.labels);
+        assertEquals(App.LABEL_FIELDS.size(), result.values.length);
+
+        int all = labelResults.getLabelId("ALL");
+        int post = labelResults.getLabelId("POST /pets");
+        assertEquals("POST /pets", labelResults.getLabelName(post));
+        assertEquals(48.4f, result.get(all, App.SUMMARY_METRICS.indexOf("time")), 0.0001);
+        // hits per label is the throughput, the same as hits of the whole test
+        assertEquals(3.5f, result.get(post, App.SUMMARY_METRICS.indexOf("hits")), 0.0001);
+        assertTrue(Float.isNaN(result.get(post, App.SUMMARY_METRICS.indexOf("errors"))));
+        assertTrue(Float.isNaN(result.get(post, App.SUMMARY_METRICS.indexOf("latency"))));
+        assertTrue(Float.isNaN(result.get(labelResults.getLabelId("DELETE /pets"), 0)));
+    }
+
+    @Test
+    public void dictionary_shared_between_masters() throws Exception {
+        LabelResults labelResults = new LabelResults();
+        LabelResults.MasterLabels first = labelResults.parse(load("{\"result\":[{\"labelName\":\"GET /pets\",\"avgResponseTime\":40},{\"labelName\":\"ALL\",\"avgResponseTime\":40}]}"));
+        LabelResults.MasterLabels second = labelResults.parse(load("{\"result\":[{\"labelName\":\"POST /pets\",\"avgResponseTime\":60},{\"labelName\":\"GET /pets\",\"avgResponseTime\":45}]}"));
+
+        int get = labelResults.getLabelId("GET /pets");
+        assertArrayEquals(new int[]{0, 1}, first.labels);
+        assertArrayEquals(new int[]{get, labelResults.getLabelId("POST /pets")}, second.labels);
+        assertTrue(second.hasLabel(get));
+        assertFalse(second.hasLabel(labelResults.getLabelId("ALL")));
+        assertEquals(45f, second.get(get, 0), 0.0001);
+
+        Map<String, Integer> found = labelResults.findLabels(Arrays.asList(first, second), "/pets");
+        assertEquals(Arrays.asList("GET /pets", "POST /pets"), Arrays.asList(found.keySet().toArray()));
+        assertEquals(3, labelResults.findLabels(Arrays.asList(first, second), "").size());
+    }
+}
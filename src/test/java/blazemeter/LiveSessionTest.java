@@ -0,0 +1,73 @@
+package blazemeter;
+
+import java.io.StringReader;
+import net.yura.io.JSONUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LiveSessionTest {
+
+    private static Object timeline(long from, long to, int samples) throws Exception {
+        StringBuilder kpis = new StringBuilder();
+        for (long ts = from; ts <= to; ts++) {
+            if (kpis.length() > 0) {
+                kpis.append(',');
+            }
+            kpis.append("{\"ts\":").append(ts).append(",\"n\":").append(samples).append(",\"ec\":1,\"t_avg\":").append(ts - from + 10)
+                    .append(",\"lt_avg\":5,\"by_avg\":512}");
+        }
+        return new JSONUtil().load(new StringReader("{\"result\":[{\"labelName\":\"ALL\",\"kpis\":[" + kpis + "]}]}"));
+    }
+
+    @Test
+    public void cursor() throws Exception {
+        LiveSession session = new LiveSession();
+        assertEquals(0, session.getCursor());
+        assertTrue(Double.isNaN(session.getAvgResponseTime()));
+
+        session.merge(timeline(1571856550, 1571856552, 100));
+        assertEquals(3, session.size());
+        assertEquals(1571856552, session.getCursor());
+        assertEquals(1571856550000L, session.getTime(0));
+        assertEquals(2, session.getDuration());
+    }
+
+    @Test
+    public void replaces_last_second() throws Exception {
+        LiveSession session = new LiveSession();
+        session.merge(timeline(1571856550, 1571856552, 100));
+        // the last second was only partly filled in, the next poll starts from the cursor and has the rest of it
+        session.merge(timeline(1571856552, 1571856553, 300));
+
+        assertEquals(4, session.size());
+        assertEquals(1571856553, session.getCursor());
+        assertEquals(100f, session.getSamples(1), 0.0001);
+        assertEquals(300f, session.getSamples(2), 0.0001);
+        assertEquals(10f, session.getResponseTime(2), 0.0001);
+        assertEquals(1571856552000L, session.getTime(2));
+        // 1 error in 300 samples
+        assertEquals(100f / 300, session.getErrorPercent(2), 0.0001);
+        // weighted by samples: (100 * 10 + 100 * 11 + 300 * 10 + 300 * 11) / 800
+        assertEquals(10.5, session.getAvgResponseTime(), 0.0001);
+        assertEquals(4 * 100.0 / 800, session.getErrorPercent(), 0.0001);
+
+        // nothing new
+        session.merge(new JSONUtil().load(new StringReader("{\"result\":[]}")));
+        assertEquals(4, session.size());
+    }
+
+    @Test
+    public void grows() throws Exception {
+        LiveSession session = new LiveSession();
+        session.merge(timeline(1571856550, 1571856550 + 49, 10));
+        session.merge(timeline(1571856550 + 49, 1571856550 + 199, 10));
+
+        assertEquals(200, session.size());
+        assertEquals(1571856550 + 199, session.getCursor());
+        assertEquals(1571856550000L + 150000, session.getTime(150));
+        assertEquals(150 - 49 + 10f, session.getResponseTime(150), 0.0001);
+        assertEquals(10.0, session.getAvgSamples(), 0.0001);
+    }
+}
@@ -0,0 +1,118 @@
+package blazemeter;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import net.yura.io.JSONUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class QueryCacheTest {
+
+    private static Map<String, Object> newTarget(String json) throws Exception {
+        return (Map<String, Object>) new JSONUtil().load(new StringReader(json));
+    }
+
+    @Test
+    public void target_key() throws Exception {
+        String key = QueryCache.getTargetKey(newTarget("{\"data\":{\"test\":\"pets\",\"project\":\"Finch\"},\"target\":\"latency\",\"refId\":\"A\",\"hide\":false,\"type\":\"timeseries\"}"));
+        assertEquals(key, QueryCache.getTargetKey(newTarget("{\"type\":\"timeseries\",\"target\":\"latency\",\"refId\":\"B\",\"data\":{\"project\":\"Finch\",\"test\":\"pets\"}}")));
+
+        assertNotEquals(key, QueryCache.getTargetKey(newTarget("{\"data\":{\"test\":\"pets\",\"project\":\"Finch\"},\"target\":\"time\",\"type\":\"timeseries\"}")));
+        // a number is a test id, but a string is a test name
+        assertNotEquals(QueryCache.getTargetKey(newTarget("{\"data\":1,\"target\":\"time\",\"type\":\"table\"}")),
+                QueryCache.getTargetKey(newTarget("{\"data\":\"1\",\"target\":\"time\",\"type\":\"table\"}")));
+    }
+
+    @Test
+    public void key_ignores_target_order() {
+        List<String> targets = Arrays.asList("a", "b");
+        assertEquals(QueryCache.getKey(315312, 60000, null, targets), QueryCache.getKey(315312, 60000, null, Arrays.asList("b", "a")));
+        assertNotEquals(QueryCache.getKey(315312, 60000, null, targets), QueryCache.getKey(315313, 60000, null, targets));
+        assertNotEquals(QueryCache.getKey(315312, 60000, null, targets), QueryCache.getKey(315312, 60000, RollupStore.Resolution.DAY, targets));
+    }
+
+    @Test
+    public void snap() {
+        QueryCache cache = new QueryCache(60000, 10000, 1000);
+        assertTrue(cache.isEnabled());
+        assertEquals(1568013960000L, cache.snap(1568013989863L));
+        assertEquals(1568013960000L, cache.snap(1568013960000L));
+
+        QueryCache disabled = new QueryCache(0, 10000, 1000);
+        assertFalse(disabled.isEnabled());
+        assertEquals(1568013989863L, disabled.snap(1568013989863L));
+    }
+
+    @Test
+    public void invalid_after_new_masters() throws Exception {
+        TestHistory history = new TestHistory(1);
+        history.update(Collections.emptyList());
+
+        QueryCache.Entry entry = new QueryCache.Entry(Collections.emptyMap(), Collections.singletonMap(history, history.getVersion()), System.currentTimeMillis());
+        assertTrue(entry.isValid(10000));
+        assertFalse(entry.isValid(0));
+
+        assertFalse(history.hasRunningMasters());
+
+        history.update((List<Map<String, Object>>) new JSONUtil().load(new StringReader(
+                "[{\"id\":21103694,\"session\":{\"created\":1571856547,\"ended\":null,\"updated\":1571856547,\"name\":\"pets\"},\"errors\":{\"percent\":0}}]")));
+        assertFalse(entry.isValid(10000));
+        assertTrue(history.hasRunningMasters());
+    }
+
+    private static QueryCache.Entry newEntry(String items, long time) {
+        return new QueryCache.Entry(Collections.singletonMap("t", items), Collections.emptyMap(), time);
+    }
+
+    @Test
+    public void capped_by_chars() {
+        QueryCache cache = new QueryCache(60000, 10000, 100);
+        long now = System.currentTimeMillis();
+        cache.put("a", newEntry(new String(new char[40]), now));
+        cache.put("b", newEntry(new String(new char[40]), now));
+        assertEquals(84, cache.getChars());
+
+        cache.get("a");
+        // pushes out b, as a was used more recently
+        cache.put("c", newEntry(new String(new char[40]), now));
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(84, cache.getChars());
+
+        // same key replaces the old size
+        cache.put("c", newEntry("", now));
+        assertEquals(44, cache.getChars());
+
+        // bigger than the whole cache, so not kept at all
+        cache.put("d", newEntry(new String(new char[200]), now));
+        assertNull(cache.get("d"));
+        assertEquals(44, cache.getChars());
+    }
+
+    @Test
+    public void expired_dropped() {
+        QueryCache cache = new QueryCache(60000, 10000, 1000);
+        long now = System.currentTimeMillis();
+        cache.put("old", newEntry("[1]", now - 20000));
+        assertEquals(1, cache.size());
+        assertNull(cache.get("old"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getChars());
+
+        // anything expired goes when something new is put
+        cache.put("other", newEntry("[2]", now - 20000));
+        cache.put("new", newEntry("[3]", now));
+        assertEquals(1, cache.size());
+        assertEquals(7, cache.getChars());
+    }
+}
@@ -0,0 +1,225 @@
+package blazemeter;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import net.yura.io.JSONUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RedisResponseCacheTest {
+
+    /**
+     * just enough of a redis server for GET and SET
+     */
+    static class FakeRedis implements AutoCloseable {
+        final Map<String, byte[]> values = new ConcurrentHashMap<>();
+        final List<String> commands = Collections.synchronizedList(new ArrayList<>());
+        final ServerSocket server;
+
+        FakeRedis() throws IOException {
+            server = new ServerSocket(0);
+            Thread thread = new Thread(() -> {
+                while (!server.isClosed()) {
+                    try {
+                        Socket socket = server.accept();
+                        new Thread(() -> serve(socket)).start();
+                    }
+                    catch (IOException ex) {
+                        // closed
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int getPort() {
+            return server.getLocalPort();
+        }
+
+        private void serve(Socket socket) {
+            try (Socket s = socket) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+                OutputStream out = s.getOutputStream();
+                while (true) {
+                    int args = Integer.parseInt(readLine(in).substring(1));
+                    byte[][] command = new byte[args][];
+                    for (int c = 0; c < args; c++) {
+                        command[c] = new byte[Integer.parseInt(readLine(in).substring(1))];
+                        in.readFully(command[c]);
+                        readLine(in);
+                    }
+                    String name = new String(command[0], StandardCharsets.UTF_8);
+                    String key = new String(command[1], StandardCharsets.UTF_8);
+                    commands.add(name + " " + key);
+                    if ("SET".equals(name)) {
+                        values.put(key, command[2]);
+                        out.write("+OK\r\n".getBytes(StandardCharsets.UTF_8));
+                    }
+                    else if ("PEXPIRE".equals(name)) {
+                        out.write((values.containsKey(key) ? ":1\r\n" : ":0\r\n").getBytes(StandardCharsets.UTF_8));
+                    }
+                    else {
+                        byte[] value = values.get(key);
+                        if (value == null) {
+                            out.write("$-1\r\n".getBytes(StandardCharsets.UTF_8));
+                        }
+                        else {
+                            out.write(("$" + value.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+                            out.write(value);
+                            out.write("\r\n".getBytes(StandardCharsets.UTF_8));
+                        }
+                    }
+                    out.flush();
+                }
+            }
+            catch (Exception ex) {
+                // client went away
+            }
+        }
+
+        private static String readLine(DataInputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int ch;
+            while ((ch = in.read()) != '\r') {
+                if (ch < 0) {
+                    throw new IOException("closed");
+                }
+                line.write(ch);
+            }
+            in.read();
+            return new String(line.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+
+    private static ResponseCache.CachedResponse newResponse(String json) throws IOException {
+        Object value = new JSONUtil().load(new StringReader(json));
+        return new ResponseCache.CachedResponse(value, "\"abc\"", null, new byte[]{1, 2, 3}, System.currentTimeMillis());
+    }
+
+    @Test
+    public void codec() throws Exception {
+        ResponseCache.CachedResponse response = newResponse("{\"result\":{\"labels\":[" +
+                "{\"id\":21103694,\"session\":{\"created\":1571856547,\"ended\":null,\"name\":\"pets\"},\"errors\":{\"percent\":0.5},\"latency\":[]}," +
+                "{\"id\":-1,\"session\":{\"created\":1571856548,\"ended\":1571856549,\"name\":\"\\u00e9\"},\"errors\":{\"percent\":0},\"latency\":{\"avg\":48.4}}]}}");
+
+        ResponseCache.CachedResponse decoded = ResponseCodec.decode(ResponseCodec.encode(response));
+
+        assertEquals(response.value, decoded.value);
+        assertEquals(response.etag, decoded.etag);
+        assertNull(decoded.lastModified);
+        assertEquals(response.time, decoded.time);
+    }
+
+    @Test
+    public void shared_between_containers() throws Exception {
+        try (FakeRedis redis = new FakeRedis()) {
+            ResponseCache first = new RedisResponseCache(new RedisClient("localhost", redis.getPort(), 500), new LocalResponseCache(10));
+            ResponseCache second = new RedisResponseCache(new RedisClient("localhost", redis.getPort(), 500), new LocalResponseCache(10));
+
+            assertNull(second.get("tests/1/masters-summaries"));
+
+            ResponseCache.CachedResponse response = newResponse("{\"result\":[{\"id\":1,\"name\":\"pets\"}]}");
+            first.put("tests/1/masters-summaries", response);
+            assertSame(response, first.get("tests/1/masters-summaries"));
+
+            ResponseCache.CachedResponse shared = second.get("tests/1/masters-summaries");
+            assertNotNull(shared);
+            assertEquals(response.value, shared.value);
+            // now it is in the near cache
+            assertSame(shared, second.get("tests/1/masters-summaries"));
+        }
+    }
+
+    @Test
+    public void works_without_redis() throws Exception {
+        int port;
+        try (ServerSocket closed = new ServerSocket(0)) {
+            port = closed.getLocalPort();
+        }
+        ResponseCache cache = new RedisResponseCache(new RedisClient("localhost", port, 500), new LocalResponseCache(10));
+
+        ResponseCache.CachedResponse response = newResponse("{\"result\":[]}");
+        cache.put("tests/1", response);
+        assertSame(response, cache.get("tests/1"));
+        assertNull(cache.get("tests/2"));
+    }
+
+    @Test
+    public void revalidate_only_sends_version() throws Exception {
+        try (FakeRedis redis = new FakeRedis()) {
+            ResponseCache first = new RedisResponseCache(new RedisClient("localhost", redis.getPort(), 500), new LocalResponseCache(10));
+            ResponseCache second = new RedisResponseCache(new RedisClient("localhost", redis.getPort(), 500), new LocalResponseCache(10));
+
+            ResponseCache.CachedResponse response = newResponse("{\"result\":[{\"id\":1,\"name\":\"pets\"}]}");
+            first.put("tests/1/masters-summaries", response);
+            assertNotNull(second.get("tests/1/masters-summaries"));
+            redis.commands.clear();
+
+            Thread.sleep(5);
+            ResponseCache.CachedResponse revalidated = response.revalidated();
+            first.putRevalidated("tests/1/masters-summaries", revalidated);
+            assertEquals(Arrays.asList("SET blazemeter:tests/1/masters-summaries:v", "PEXPIRE blazemeter:tests/1/masters-summaries"), redis.commands);
+            assertSame(revalidated, first.get("tests/1/masters-summaries"));
+
+            // the other container sees the new time without getting the body again
+            Thread.sleep(1000);
+            redis.commands.clear();
+            ResponseCache.CachedResponse shared = second.get("tests/1/masters-summaries");
+            assertEquals(revalidated.time, shared.time);
+            assertEquals(Collections.singletonList("GET blazemeter:tests/1/masters-summaries:v"), redis.commands);
+        }
+    }
+
+    @Test
+    public void concurrent_requests() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        try (FakeRedis redis = new FakeRedis()) {
+            RedisClient client = new RedisClient("localhost", redis.getPort(), 500);
+            List<CompletableFuture<Void>> requests = new ArrayList<>();
+            for (int c = 0; c < 100; c++) {
+                String key = "key" + c;
+                requests.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        client.set(key, key.getBytes(StandardCharsets.UTF_8), 1000);
+                        assertEquals(key, new String(client.get(key), StandardCharsets.UTF_8));
+                    }
+                    catch (IOException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }, executor));
+            }
+            requests.forEach(CompletableFuture::join);
+            assertEquals(100, redis.values.size());
+            client.close();
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+}
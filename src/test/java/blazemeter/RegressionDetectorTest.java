@@ -0,0 +1,62 @@
+package blazemeter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RegressionDetectorTest {
+
+    @Test
+    public void needs_baseline_first() {
+        RegressionDetector detector = new RegressionDetector();
+        for (int c = 0; c < 5; c++) {
+            detector.add(c, "latency", 100);
+        }
+        for (int c = 0; c < 5; c++) {
+            assertNull(detector.get(c, "latency"));
+        }
+        detector.add(5, "latency", 100);
+        RegressionDetector.Score score = detector.get(5, "latency");
+        assertNotNull(score);
+        assertEquals(100.0, score.baseline, 0.0001);
+        assertEquals(0.0, score.zscore, 0.0001);
+        assertNull(detector.get(5, "time"));
+    }
+
+    @Test
+    public void regression() {
+        RegressionDetector detector = new RegressionDetector();
+        for (int c = 0; c < 20; c++) {
+            detector.add(c, "latency", c % 2 == 0 ? 95 : 105);
+        }
+        RegressionDetector.Score normal = detector.get(19, "latency");
+        assertFalse(normal.isRegression(1));
+
+        detector.add(20, "latency", 200);
+        RegressionDetector.Score slow = detector.get(20, "latency");
+        assertTrue(slow.zscore >= RegressionDetector.THRESHOLD);
+        assertTrue(slow.isRegression(1));
+        assertTrue(slow.isRegression(0));
+        // going up is not a regression for a metric where lower is worse
+        assertFalse(slow.isRegression(-1));
+
+        // the regression is now in the baseline, so the next run is compared against a higher mean
+        detector.add(21, "latency", 100);
+        assertTrue(detector.get(21, "latency").baseline > slow.baseline);
+    }
+
+    @Test
+    public void no_variance() {
+        RegressionDetector detector = new RegressionDetector();
+        for (int c = 0; c < 10; c++) {
+            detector.add(c, "errors", 0);
+        }
+        detector.add(10, "errors", 2.5);
+        assertEquals(10.0, detector.get(10, "errors").zscore, 0.0001);
+        assertTrue(detector.get(10, "errors").isRegression(1));
+    }
+}
@@ -0,0 +1,51 @@
+package blazemeter;
+
+import java.util.NavigableMap;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RollupStoreTest {
+
+    @Test
+    public void coarsest_resolution_for_interval() {
+        assertNull(RollupStore.forInterval(20000));
+        assertEquals(RollupStore.Resolution.HOUR, RollupStore.forInterval(3600000));
+        assertEquals(RollupStore.Resolution.DAY, RollupStore.forInterval(2 * 24 * 3600000L));
+        assertEquals(RollupStore.Resolution.WEEK, RollupStore.forInterval(30 * 24 * 3600000L));
+    }
+
+    @Test
+    public void weeks_start_on_monday() {
+        // thursday 2019-10-24 12:00 UTC
+        long thursday = 1571918400000L;
+        // monday 2019-10-21 00:00 UTC
+        assertEquals(1571616000000L, RollupStore.Resolution.WEEK.bucketStart(thursday));
+        assertEquals(1571616000000L, RollupStore.Resolution.WEEK.bucketStart(1571616000000L));
+        assertEquals(1571875200000L, RollupStore.Resolution.DAY.bucketStart(thursday));
+    }
+
+    @Test
+    public void buckets() {
+        RollupStore store = new RollupStore();
+        long day = RollupStore.Resolution.DAY.millis;
+        store.add(day + 1000, "latency", 10);
+        store.add(day + 5000, "latency", 30);
+        store.add(2 * day + 1000, "latency", 50);
+
+        NavigableMap<Long, RollupStore.Bucket> daily = store.getBuckets(RollupStore.Resolution.DAY, "latency", day + 3000);
+        assertEquals(2, daily.size());
+
+        RollupStore.Bucket first = daily.get(day);
+        assertEquals(2, first.count);
+        assertEquals(20.0, first.getAvg(), 0.0001);
+        assertEquals(10.0, first.min, 0.0001);
+        assertEquals(30.0, first.max, 0.0001);
+        assertEquals(10.0, first.getStd(), 0.0001);
+
+        assertEquals(1, store.getBuckets(RollupStore.Resolution.WEEK, "latency", 0).size());
+        assertTrue(store.getBuckets(RollupStore.Resolution.HOUR, "time", 0).isEmpty());
+    }
+}
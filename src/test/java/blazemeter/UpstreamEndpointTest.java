@@ -0,0 +1,105 @@
+package blazemeter;
+
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class UpstreamEndpointTest {
+
+    @Test
+    public void name() {
+        assertEquals("masters/{id}/reports/errorsreport/data", UpstreamEndpoint.getName("masters/20884977/reports/errorsreport/data"));
+        assertEquals("tests/{id}/masters-summaries", UpstreamEndpoint.getName("tests/6885287/masters-summaries?limit=100"));
+        assertEquals("tests", UpstreamEndpoint.getName("tests?workspaceId=315312&name=pets&limit=100"));
+    }
+
+    @Test
+    public void circuit_opens_on_failures() {
+        UpstreamEndpoint endpoint = new UpstreamEndpoint("tests");
+        for (int c = 0; c < 10; c++) {
+            assertTrue(endpoint.allowRequest());
+            endpoint.record(100, c % 2 == 0);
+        }
+        assertFalse(endpoint.allowRequest());
+        assertEquals("OPEN", endpoint.getStats().get("state"));
+        assertEquals(1L, endpoint.getStats().get("rejected"));
+    }
+
+    @Test
+    public void circuit_stays_closed() {
+        UpstreamEndpoint endpoint = new UpstreamEndpoint("tests");
+        for (int c = 0; c < 100; c++) {
+            assertTrue(endpoint.allowRequest());
+            endpoint.record(100, c % 10 == 0);
+        }
+        assertEquals("CLOSED", endpoint.getStats().get("state"));
+    }
+
+    @Test
+    public void hedge() {
+        UpstreamEndpoint endpoint = new UpstreamEndpoint("masters/{id}/reports/errorsreport/data");
+        assertEquals(-1, endpoint.getHedgeDelay());
+
+        for (int c = 0; c < 100; c++) {
+            endpoint.allowRequest();
+            endpoint.record(c < 95 ? 100 : 3000, false);
+        }
+        assertEquals(3000, endpoint.getHedgeDelay());
+
+        // only 10% of requests can be hedged
+        int hedges = 0;
+        while (endpoint.tryHedge()) {
+            hedges++;
+        }
+        assertEquals(10, hedges);
+    }
+
+    @Test
+    public void only_server_errors_are_failures() {
+        assertFalse(UpstreamEndpoint.isFailure(new UpstreamEndpoint.StatusException(404, "tests/1")));
+        assertFalse(UpstreamEndpoint.isFailure(new UpstreamEndpoint.StatusException(400, "tests/1")));
+        assertTrue(UpstreamEndpoint.isFailure(new UpstreamEndpoint.StatusException(503, "tests/1")));
+        assertTrue(UpstreamEndpoint.isFailure(new SocketTimeoutException()));
+        assertTrue(UpstreamEndpoint.isFailure(new ConnectException()));
+
+        // a few queries for a test that does not exist must not stop everyone else getting their tests
+        UpstreamEndpoint endpoint = new UpstreamEndpoint("tests/{id}/masters-summaries");
+        for (int c = 0; c < 20; c++) {
+            assertTrue(endpoint.allowRequest());
+            endpoint.record(100, UpstreamEndpoint.isFailure(new UpstreamEndpoint.StatusException(404, "tests/1")));
+        }
+        assertEquals("CLOSED", endpoint.getStats().get("state"));
+    }
+
+    @Test
+    public void hanging_endpoint_opens_circuit() throws Exception {
+        UpstreamEndpoint endpoint = new UpstreamEndpoint("tests");
+        // the connection is accepted, but nothing is ever sent back
+        try (ServerSocket server = new ServerSocket(0)) {
+            URL url = new URL("http://localhost:" + server.getLocalPort() + "/tests");
+            for (int c = 0; c < 10; c++) {
+                assertTrue(endpoint.allowRequest());
+                try {
+                    endpoint.call(() -> {
+                        HttpURLConnection connection = App.openConnection(url, 100);
+                        return connection.getResponseCode();
+                    });
+                    fail("should time out");
+                }
+                catch (SocketTimeoutException ex) {
+                    // expected
+                }
+            }
+        }
+        assertFalse(endpoint.allowRequest());
+        assertEquals("OPEN", endpoint.getStats().get("state"));
+    }
+}
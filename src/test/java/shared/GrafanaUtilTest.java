@@ -0,0 +1,27 @@
+package shared;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GrafanaUtilTest {
+
+    @Test
+    public void float_to_double() {
+        assertEquals(48.4, GrafanaUtil.toDouble(48.4f), 0);
+        assertEquals(0.001, GrafanaUtil.toDouble(0.001f), 0);
+        assertEquals(-1.1, GrafanaUtil.toDouble(-1.1f), 0);
+        assertEquals(1.0E-10, GrafanaUtil.toDouble(1.0E-10f), 0);
+        // whole numbers are exact, even when they have more than 7 digits
+        assertEquals(16777216.0, GrafanaUtil.toDouble(16777216f), 0);
+        assertEquals(123456792.0, GrafanaUtil.toDouble(123456789f), 0);
+        assertEquals(0.0, GrafanaUtil.toDouble(0f), 0);
+        assertTrue(Double.isNaN(GrafanaUtil.toDouble(Float.NaN)));
+
+        // always the same float again
+        for (float value = 0.0001f; value < 1e9f; value = value * 1.37f) {
+            assertEquals(value, (float) GrafanaUtil.toDouble(value), 0);
+        }
+    }
+}
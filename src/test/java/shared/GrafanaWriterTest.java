@@ -0,0 +1,83 @@
+package shared;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class GrafanaWriterTest {
+
+    private static String write(Object result) throws Exception {
+        StringWriter out = new StringWriter();
+        new GrafanaWriter().write(out, Collections.singletonList(result));
+        return out.toString();
+    }
+
+    @Test
+    public void timeseries() throws Exception {
+        TimeseriesResult series = new TimeseriesResult("latency \"avg\"");
+        series.add(48.400000000000006, 1571856547000L);
+        series.add((Number) null, 1571856548000L);
+        series.add(48.4f, 1571856549000L);
+        series.add(-0.0625, 1571856550000L);
+        series.add(26L, 1571856551000L);
+        series.reverse();
+
+        String content = write(series);
+        assertEquals("[{\"target\":\"latency \\\"avg\\\"\",\"datapoints\":[[26,1571856551000],[-0.0625,1571856550000],[48.4,1571856549000],[null,1571856548000],[48.4,1571856547000]]}]", content);
+    }
+
+    @Test
+    public void table() throws Exception {
+        TableResult table = new TableResult();
+        table.addColumn("a", "number");
+        table.addColumn("b", "number");
+        for (int c = 0; c < 20; c++) {
+            table.addRow(20 - c);
+            table.addValue(c);
+            table.addValue(c == 5 ? null : 0.001 * c);
+        }
+        table.reverse();
+
+        String content = write(table);
+        GrafanaTestUtil.assertTableCorrect(content);
+        assertEquals(true, content.startsWith("[{\"type\":\"table\",\"columns\":[{\"text\":\"Time\",\"type\":\"time\"},{\"text\":\"a\",\"type\":\"number\"},{\"text\":\"b\",\"type\":\"number\"}],\"rows\":[[1,19,0.019],[2,18,0.018]"));
+        assertEquals(true, content.contains("[15,5,null]"));
+    }
+
+    @Test
+    public void many_results() throws Exception {
+        StringWriter out = new StringWriter();
+        TimeseriesResult series = new TimeseriesResult("hits");
+        for (int c = 0; c < 5000; c++) {
+            series.add(c / 3.0, c);
+        }
+        new GrafanaWriter().write(out, Arrays.asList(series, series));
+        String content = out.toString();
+        assertEquals(true, content.contains("[1666.33333333333,4999]]},{\"target\":\"hits\""));
+    }
+
+    @Test
+    public void items() throws Exception {
+        TimeseriesResult a = new TimeseriesResult("a");
+        a.add(1L, 1000L);
+        TimeseriesResult b = new TimeseriesResult("b");
+
+        StringWriter out = new StringWriter();
+        new GrafanaWriter().writeItems(out, Arrays.asList(a, b));
+        assertEquals("{\"target\":\"a\",\"datapoints\":[[1,1000]]},{\"target\":\"b\",\"datapoints\":[]}", out.toString());
+
+        out = new StringWriter();
+        new GrafanaWriter().writeItems(out, Collections.emptyList());
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    public void no_target_name() throws Exception {
+        TimeseriesResult series = new TimeseriesResult(null);
+        series.add(1L, 1000L);
+        assertEquals("[{\"target\":null,\"datapoints\":[[1,1000]]}]", write(series));
+    }
+}
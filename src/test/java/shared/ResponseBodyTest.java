@@ -0,0 +1,87 @@
+package shared;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseBodyTest {
+
+    private static String decompress(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String newContent() {
+        StringBuilder content = new StringBuilder("[");
+        for (int c = 0; c < 1000; c++) {
+            content.append("[").append(c).append(",1571856547000],");
+        }
+        return content.append("[0,0]]").toString();
+    }
+
+    @Test
+    public void encoding() {
+        assertEquals(ResponseBody.GZIP, ResponseBody.getEncoding("gzip, deflate, br"));
+        assertEquals(ResponseBody.DEFLATE, ResponseBody.getEncoding("deflate, gzip;q=0"));
+        assertEquals(ResponseBody.GZIP, ResponseBody.getEncoding("*"));
+        assertNull(ResponseBody.getEncoding("identity"));
+        assertNull(ResponseBody.getEncoding(null));
+        // named codings win over "*"
+        assertEquals(ResponseBody.DEFLATE, ResponseBody.getEncoding("gzip;q=0, *"));
+        assertNull(ResponseBody.getEncoding("gzip;q=0, deflate;q=0, *"));
+        assertNull(ResponseBody.getEncoding("*;q=0"));
+        // a bad q is not accepted, instead of failing the request
+        assertEquals(ResponseBody.DEFLATE, ResponseBody.getEncoding("gzip;q=high, deflate"));
+        assertNull(ResponseBody.getEncoding("gzip;q="));
+    }
+
+    @Test
+    public void small_not_compressed() throws Exception {
+        ResponseBody body = new ResponseBody(ResponseBody.GZIP, 1024);
+        body.write("[]");
+        body.close();
+        assertFalse(body.isCompressed());
+        assertEquals("[]", body.toString());
+    }
+
+    @Test
+    public void gzip() throws Exception {
+        String content = newContent();
+        ResponseBody body = new ResponseBody(ResponseBody.GZIP, 1024);
+        body.write(content.substring(0, 100));
+        body.write(content.substring(100));
+        body.close();
+        assertTrue(body.isCompressed());
+        assertTrue(body.toString().length() < content.length());
+
+        byte[] bytes = Base64.getDecoder().decode(body.toString());
+        assertEquals(content, decompress(new GZIPInputStream(new ByteArrayInputStream(bytes))));
+    }
+
+    @Test
+    public void deflate() throws Exception {
+        String content = newContent();
+        ResponseBody body = new ResponseBody(ResponseBody.DEFLATE, 1024);
+        body.write(content);
+        body.close();
+        assertTrue(body.isCompressed());
+
+        byte[] bytes = Base64.getDecoder().decode(body.toString());
+        assertEquals(content, decompress(new InflaterInputStream(new ByteArrayInputStream(bytes))));
+    }
+}